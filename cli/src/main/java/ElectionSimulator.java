@@ -0,0 +1,262 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Runs simulated elections from the command line. A single election prints
+ * its full results and the coalition that governs after it, and a batch of
+ * replications prints the distribution of each party's votes and seats.
+ * Voters can be saved to an electorate file and counted from it later, and
+ * read from a CSV file of survey data.
+ */
+public class ElectionSimulator
+{
+	private static final String USAGE =
+		"Usage: java -jar electionsimulator.jar [options]\n" +
+		"  --voters N          the number of voters (default 1000000)\n" +
+		"  --party N,S,E,C     a party's name, social and economic policy and competence;\n" +
+		"                      repeat for each party (default four parties at 25 and 75)\n" +
+		"  --system NAME       election, pr, majoritarian, two-round, n-min-one, stv or fptp\n" +
+		"                      (default election); separate several names with commas to\n" +
+		"                      compare systems on the same voters\n" +
+		"  --seats N           the number of seats of a stv election, 1 for instant runoff (default 1)\n" +
+		"  --districts N       the number of districts of a fptp election (default 650)\n" +
+		"  --replications N    the number of elections to run, each with new voters (default 1)\n" +
+		"  --seed N            the seed voters and tie-breaking are derived from (default random)\n" +
+		"  --parallelism N     the number of threads (default all cores)\n" +
+		"  --save FILE         save the voters, parties and seed to an electorate file and exit\n" +
+		"  --load FILE         count the voters in an electorate file, with its parties and seed\n" +
+		"                      unless others are given\n" +
+		"  --csv FILE          count the voters in a CSV file with the columns social preference,\n" +
+		"                      economic preference, preference ratio and competence ratio;\n" +
+		"                      with --save, convert them to an electorate file instead";
+
+	/** The standard deviation of the shift in mean preferences of each fptp district */
+	private static final double DISTRICT_SPREAD = 10;
+
+	/** The memory available to the ballots shared by the systems compared, in bytes */
+	private static final long BALLOT_CACHE_BUDGET = 256L << 20;
+
+	/** The parties participating when none are given */
+	private static final Party[] DEFAULT_PARTIES = { new Party("L-L", 25, 25, 50),
+	                                                 new Party("L-R", 25, 75, 50),
+	                                                 new Party("R-L", 75, 25, 50),
+	                                                 new Party("R-R", 75, 75, 50)};
+
+	public static void main(String[] args)
+	{
+		int noVoters = 1_000_000;
+		List<Party> parties = new ArrayList<>();
+		String system = "election";
+		int noReplications = 1;
+		int noDistricts = 650;
+		int noSeats = 1;
+		long seed = new Random().nextLong();
+		boolean seedGiven = false;
+		String saveFile = null;
+		String loadFile = null;
+		String csvFile = null;
+		int parallelism = Runtime.getRuntime().availableProcessors();
+
+		try
+		{
+			for(int i=0; i<args.length; i++)
+			{
+				String option = args[i];
+				if(option.equals("--help"))
+				{
+					System.out.println(USAGE);
+					return;
+				}
+				if(i+1 == args.length)
+					throw new IllegalArgumentException("Missing value for " + option);
+
+				String value = args[++i];
+				switch(option)
+				{
+					case "--voters":       noVoters = Integer.parseInt(value); break;
+					case "--party":        parties.add(parseParty(value)); break;
+					case "--system":       system = value; break;
+					case "--replications": noReplications = Integer.parseInt(value); break;
+					case "--seats":        noSeats = Integer.parseInt(value); break;
+					case "--districts":    noDistricts = Integer.parseInt(value); break;
+					case "--seed":         seed = Long.parseLong(value); seedGiven = true; break;
+					case "--parallelism":  parallelism = Integer.parseInt(value); break;
+					case "--save":         saveFile = value; break;
+					case "--load":         loadFile = value; break;
+					case "--csv":          csvFile = value; break;
+					default: throw new IllegalArgumentException("Unknown option: " + option);
+				}
+			}
+
+			Party[] partyArray = parties.isEmpty() ? DEFAULT_PARTIES : parties.toArray(new Party[parties.size()]);
+
+			//the voters and their tie-breaking are drawn from independent
+			//seeds, as in the first replication of a batch, so breaking ties
+			//never replays the random numbers that drew the voters
+			long voterSeed = Seeds.mix(seed, 0);
+			long countSeed = Seeds.mix(seed, 1);
+
+			if(saveFile != null && csvFile != null)
+			{
+				//the voters are streamed from one file to the other
+				long noConverted = VoterCsv.convert(Paths.get(csvFile), Paths.get(saveFile), partyArray, countSeed);
+				System.out.println("Saved " + noConverted + " voters to " + saveFile);
+				return;
+			}
+
+			if(saveFile != null)
+			{
+				//the voters are generated straight into the file, never onto the heap
+				ElectorateFile.generate(Paths.get(saveFile), partyArray, noVoters, voterSeed, countSeed);
+				System.out.println("Saved " + noVoters + " voters to " + saveFile);
+				return;
+			}
+
+			if(loadFile != null && csvFile != null)
+				throw new IllegalArgumentException("Voters cannot be loaded from both an electorate file and a CSV file");
+
+			ElectorateFile voterFile = null;
+			if(loadFile != null)
+			{
+				voterFile = ElectorateFile.open(Paths.get(loadFile));
+				if(parties.isEmpty())
+					partyArray = voterFile.getParties().toArray(new Party[0]);
+				if(!seedGiven)
+					countSeed = voterFile.getSeed();
+			}
+
+			String[] systems = system.split(",");
+			List<Supplier<Election>> electionFactories = new ArrayList<>(systems.length);
+			for(String s : systems)
+				electionFactories.add(electionFactory(s, noSeats));
+
+			if(systems.length > 1 && Arrays.asList(systems).contains("fptp"))
+				throw new IllegalArgumentException("A fptp election cannot be compared with other systems");
+
+			if((voterFile != null || csvFile != null) && (system.equals("fptp") || noReplications != 1))
+				throw new IllegalArgumentException("The voters of a file can only be counted in a single election");
+
+			//survey data is ranked as it is read, in a single pass keeping
+			//only the distinct ballots, so a CSV file of any size is counted
+			//with constant memory
+			BallotProfile csvBallots = null;
+			PreferenceGrid csvVoters = null;
+			if(csvFile != null)
+			{
+				csvVoters = new PreferenceGrid();
+				csvBallots = VoterCsv.countBallots(Paths.get(csvFile), partyArray, countSeed, csvVoters);
+			}
+
+			if(system.equals("fptp"))
+			{
+				if(noReplications != 1)
+					throw new IllegalArgumentException("A fptp election cannot be replicated");
+
+				FPTPElection election = new FPTPElection();
+				election.addRandomDistricts(noDistricts, noVoters, DISTRICT_SPREAD, voterSeed);
+				election.addParties(partyArray);
+				election.setSeed(countSeed);
+				election.setParallelism(parallelism);
+
+				election.run();
+				System.out.println(election.toString());
+				printGovernment(election);
+			}
+			else if(noReplications == 1)
+			{
+				//every system counts the same ballots, so the voters are ranked only once
+				VoterTable voters = voterFile == null && csvBallots == null ? VoterFactory.generate(noVoters, voterSeed, parallelism) : new VoterTable();
+				BallotProfileCache ballotCache = new BallotProfileCache(BALLOT_CACHE_BUDGET);
+				for(Supplier<Election> electionFactory : electionFactories)
+				{
+					Election election = electionFactory.get();
+					election.addVoters(voters);
+					if(voterFile != null)
+						election.addVoters(voterFile);
+					if(csvBallots != null)
+						election.setBallots(csvBallots, csvVoters);
+					election.addParties(partyArray);
+					election.setSeed(countSeed);
+					election.setParallelism(parallelism);
+					election.setBallotCache(ballotCache);
+
+					election.run();
+					System.out.println(election.toString());
+					printGovernment(election);
+				}
+			}
+			else
+			{
+				if(systems.length > 1)
+					throw new IllegalArgumentException("Systems can only be compared in a single election");
+
+				SimulationBatch batch = new SimulationBatch(electionFactories.get(0), partyArray, noVoters);
+				batch.setReplications(noReplications);
+				batch.setSeed(seed);
+				batch.setParallelism(parallelism);
+
+				System.out.println(batch.run().toString());
+			}
+		}
+		catch(IllegalArgumentException e)
+		{
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(1);
+		}
+		catch(IOException e)
+		{
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Prints the coalition that governs after an election, if any holds a majority.
+	 */
+	private static void printGovernment(Election election)
+	{
+		Coalition government = new CoalitionSolver(election.seatResults()).government();
+		System.out.println("Government: " + (government == null ? "none" : government.toString()));
+	}
+
+	/**
+	 * Parses a party from its name, social policy, economic policy and
+	 * competence, separated by commas.
+	 */
+	private static Party parseParty(String s) throws IllegalArgumentException
+	{
+		String[] fields = s.split(",");
+		if(fields.length != 4)
+			throw new IllegalArgumentException("Invalid party: " + s);
+
+		return new Party(fields[0], Integer.parseInt(fields[1]), Integer.parseInt(fields[2]), Integer.parseInt(fields[3]));
+	}
+
+	/**
+	 * Returns a factory of new, empty elections of the named system. Only
+	 * stv elections use the number of seats.
+	 */
+	private static Supplier<Election> electionFactory(String system, final int noSeats) throws IllegalArgumentException
+	{
+		if(noSeats < 1)
+			throw new IllegalArgumentException("Invalid number of seats: " + noSeats);
+
+		switch(system)
+		{
+			case "election":     return Election::new;
+			case "pr":           return PRElection::new;
+			case "majoritarian": return MajoritarianElection::new;
+			case "two-round":    return TwoRoundElection::new;
+			case "n-min-one":    return NMinOneAvgElection::new;
+			case "stv":          return () -> new STVElection(noSeats);
+			case "fptp":         return FPTPElection::new;
+			default: throw new IllegalArgumentException("Unknown election system: " + system);
+		}
+	}
+}
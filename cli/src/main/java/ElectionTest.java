@@ -18,6 +18,8 @@ public class ElectionTest
 			election.addVoter(VoterFactory.randomVoter());
 		//add the desired parties
 		election.addParties(parties);
+		//count the votes on every available core
+		election.setParallelism(Runtime.getRuntime().availableProcessors());
 
 		//run the election and print its results
 		election.run();
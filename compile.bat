@@ -1 +0,0 @@
-javac -cp src/main/java;src/main/resources/*  src/main/java/ElectionTest.java
\ No newline at end of file
@@ -0,0 +1,298 @@
+
+import java.util.Arrays;
+
+/**
+ * A count of distinct ballots. Every full ranking of the parties cast by at
+ * least one voter is stored once, with the number of voters who cast it.
+ * Parties are identified by their index in the party array the ballots were
+ * ranked against.
+ *
+ * Since a voter's preferences between the parties do not depend on which
+ * other parties are standing, the ballots can be recounted over any subset
+ * of the parties without ranking the voters again. The cost of a recount
+ * depends on the number of distinct ballots rather than on the number of
+ * voters.
+ */
+public class BallotBox implements BallotCount<BallotBox>
+{
+	/** Marks an empty slot in the hash table */
+	private static final int EMPTY = -1;
+	/** The default number of distinct ballots to allocate space for */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/** The number of parties being ranked */
+	private final int noParties;
+
+	/** The distinct rankings, noParties entries each, in order of arrival */
+	private int[] rankings;
+	/** The number of voters who cast each distinct ranking */
+	private int[] counts;
+	/** The number of distinct rankings */
+	private int noBallots;
+	/** The total number of voters */
+	private int noVoters;
+
+	/** A hash table of indices into the rankings, or EMPTY */
+	private int[] slots;
+
+	/**
+	 * Constructs a new, empty ballot box for the given number of parties.
+	 * @param noParties the number of parties being ranked.
+	 */
+	public BallotBox(int noParties)
+	{
+		this.noParties = noParties;
+		this.rankings = new int[DEFAULT_CAPACITY * noParties];
+		this.counts = new int[DEFAULT_CAPACITY];
+		this.slots = new int[DEFAULT_CAPACITY * 2];
+		Arrays.fill(slots, EMPTY);
+	}
+
+	/**
+	 * Adds a number of identical ballots to the box.
+	 * @param ranking the party indices in descending order of preference.
+	 * @param weight the number of ballots with this ranking.
+	 * @throws ArithmeticException if the box would hold more than Integer.MAX_VALUE ballots.
+	 */
+	@Override
+	public void addBallot(int[] ranking, int weight) throws ArithmeticException
+	{
+		add(ranking, 0, weight);
+	}
+
+	/**
+	 * Adds a number of identical ballots to the box and returns the index of
+	 * their distinct ballot.
+	 * @param ranking the party indices in descending order of preference.
+	 * @param weight the number of ballots with this ranking, at least 1.
+	 * @return the index of the distinct ballot.
+	 * @throws ArithmeticException if the box would hold more than Integer.MAX_VALUE ballots.
+	 */
+	int add(int[] ranking, int weight) throws ArithmeticException
+	{
+		return add(ranking, 0, weight);
+	}
+
+	/**
+	 * Adds a number of identical ballots, read from an offset of an array,
+	 * and returns the index of their distinct ballot, or -1 if there are none.
+	 */
+	private int add(int[] ranking, int offset, int weight)
+	{
+		if(weight == 0)
+			return -1;
+
+		noVoters = Math.addExact(noVoters, weight);
+
+		int slot = find(ranking, offset);
+		if(slots[slot] != EMPTY)
+		{
+			counts[slots[slot]] += weight;
+			return slots[slot];
+		}
+
+		if(noBallots == counts.length)
+		{
+			counts = Arrays.copyOf(counts, noBallots * 2);
+			rankings = Arrays.copyOf(rankings, noBallots * 2 * noParties);
+		}
+
+		System.arraycopy(ranking, offset, rankings, noBallots * noParties, noParties);
+		counts[noBallots] = weight;
+		slots[slot] = noBallots;
+		noBallots++;
+
+		//keep the hash table at most half full
+		if(noBallots * 2 > slots.length)
+			rehash(slots.length * 2);
+
+		return noBallots - 1;
+	}
+
+	/**
+	 * Creates a new, empty ballot box for the same number of parties.
+	 * @return a new, empty ballot box.
+	 */
+	@Override
+	public BallotBox emptyCopy()
+	{
+		return new BallotBox(noParties);
+	}
+
+	/**
+	 * Adds all the ballots in another box to this one.
+	 * @param other the box to be merged into this one.
+	 * @throws IllegalArgumentException if the boxes rank different numbers of parties.
+	 */
+	@Override
+	public void merge(BallotBox other) throws IllegalArgumentException
+	{
+		if(other.noParties != noParties)
+			throw new IllegalArgumentException("Cannot merge ballot boxes of different sizes");
+
+		for(int b=0; b<other.noBallots; b++)
+			add(other.rankings, b * noParties, other.counts[b]);
+	}
+
+	/**
+	 * Returns the number of parties being ranked.
+	 * @return the number of parties being ranked.
+	 */
+	public int noParties()
+	{
+		return noParties;
+	}
+
+	/**
+	 * Returns the number of distinct ballots in the box.
+	 * @return the number of distinct ballots in the box.
+	 */
+	public int noBallots()
+	{
+		return noBallots;
+	}
+
+	/**
+	 * Returns the total number of ballots in the box.
+	 * @return the total number of ballots in the box.
+	 */
+	public int noVoters()
+	{
+		return noVoters;
+	}
+
+	/**
+	 * Returns the approximate number of bytes of memory the box holds.
+	 * @return the approximate number of bytes of memory the box holds.
+	 */
+	public long memoryUsage()
+	{
+		return 4L * (rankings.length + counts.length + slots.length);
+	}
+
+	/**
+	 * Returns the party at a given rank of a distinct ballot.
+	 * @param ballot the index of the distinct ballot, from 0 to noBallots() - 1.
+	 * @param rank the rank, from 0 for the first choice.
+	 * @return the index of the party at the given rank.
+	 */
+	public int getParty(int ballot, int rank)
+	{
+		return rankings[ballot * noParties + rank];
+	}
+
+	/**
+	 * Returns the number of voters who cast a distinct ballot.
+	 * @param ballot the index of the distinct ballot, from 0 to noBallots() - 1.
+	 * @return the number of voters who cast the ballot.
+	 */
+	public int getCount(int ballot)
+	{
+		return counts[ballot];
+	}
+
+	/**
+	 * Counts the ballots over all the parties.
+	 * @return a tally of the ballots.
+	 */
+	public Tally tally()
+	{
+		Tally tally = new Tally(noParties);
+		int[] ranking = new int[noParties];
+		for(int b=0; b<noBallots; b++)
+		{
+			System.arraycopy(rankings, b * noParties, ranking, 0, noParties);
+			tally.addBallot(ranking, counts[b]);
+		}
+
+		return tally;
+	}
+
+	/**
+	 * Counts the ballots over a subset of the parties, as if the other
+	 * parties had not been standing. Each voter's choices among the standing
+	 * parties keep the order of the voter's full ranking.
+	 * @param standing the indices of the standing parties. The tally
+	 * identifies each party by its position in this array.
+	 * @return a tally of the ballots over the standing parties.
+	 */
+	public Tally tally(int[] standing)
+	{
+		Tally tally = new Tally(standing.length);
+		project(standing, tally);
+
+		return tally;
+	}
+
+	/**
+	 * Adds the ballots to a sink, restricted to a subset of the parties in
+	 * the same way as {@link #tally(int[])}.
+	 * @param standing the indices of the standing parties. The sink
+	 * identifies each party by its position in this array.
+	 * @param sink the sink to add the ballots to.
+	 */
+	void project(int[] standing, BallotSink sink)
+	{
+		//map each party to its position among the standing parties, or -1
+		int[] position = new int[noParties];
+		Arrays.fill(position, -1);
+		for(int i=0; i<standing.length; i++)
+			position[standing[i]] = i;
+
+		int[] ranking = new int[standing.length];
+		for(int b=0; b<noBallots; b++)
+		{
+			int rank = 0;
+			for(int i=b * noParties; rank<standing.length; i++)
+			{
+				int p = position[rankings[i]];
+				if(p >= 0)
+					ranking[rank++] = p;
+			}
+
+			sink.addBallot(ranking, counts[b]);
+		}
+	}
+
+	/**
+	 * Returns the slot holding a ranking, or the empty slot where it would go.
+	 */
+	private int find(int[] ranking, int offset)
+	{
+		int hash = 0;
+		for(int i=0; i<noParties; i++)
+			hash = hash * 31 + ranking[offset + i];
+
+		int mask = slots.length - 1;
+		int slot = (hash * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(mask);
+
+		while(slots[slot] != EMPTY && !sameRanking(slots[slot], ranking, offset))
+			slot = (slot + 1) & mask;
+
+		return slot;
+	}
+
+	/**
+	 * Returns whether a stored ballot matches a ranking.
+	 */
+	private boolean sameRanking(int ballot, int[] ranking, int offset)
+	{
+		int start = ballot * noParties;
+		for(int i=0; i<noParties; i++)
+			if(rankings[start + i] != ranking[offset + i]) return false;
+
+		return true;
+	}
+
+	/**
+	 * Rebuilds the hash table with the given capacity.
+	 */
+	private void rehash(int capacity)
+	{
+		slots = new int[capacity];
+		Arrays.fill(slots, EMPTY);
+
+		for(int b=0; b<noBallots; b++)
+			slots[find(rankings, b * noParties)] = b;
+	}
+}
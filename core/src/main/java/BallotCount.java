@@ -0,0 +1,20 @@
+/**
+ * A count of ballots which can be built in parts. Ballots are counted in
+ * chunks, each into its own empty count, and the chunks' counts are then
+ * merged.
+ * @param <S> the type of the count itself.
+ */
+interface BallotCount<S extends BallotCount<S>> extends BallotSink
+{
+	/**
+	 * Creates a new, empty count of the same kind for the same parties.
+	 * @return a new, empty count.
+	 */
+	S emptyCopy();
+
+	/**
+	 * Adds all the ballots in another count to this one.
+	 * @param other the count to be merged into this one.
+	 */
+	void merge(S other);
+}
@@ -0,0 +1,86 @@
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The distinct ballots cast by a set of voters over a set of parties, each
+ * stored once with the number of voters who cast it. A profile can be
+ * counted by any election over the same parties, in any order, without
+ * ranking the voters again.
+ */
+public class BallotProfile
+{
+	/** The parties the ballots were ranked against, in order */
+	private final Party[] parties;
+	/** The distinct ballots, identifying parties by their index in the party array */
+	private final BallotBox ballots;
+
+	/**
+	 * Constructs a profile of ballots.
+	 * @param parties the parties the ballots were ranked against, in order.
+	 * @param ballots the distinct ballots.
+	 */
+	BallotProfile(Party[] parties, BallotBox ballots)
+	{
+		this.parties = parties;
+		this.ballots = ballots;
+	}
+
+	/**
+	 * Returns the parties the ballots rank.
+	 * @return the parties the ballots rank.
+	 */
+	public ImmutableList<Party> getParties()
+	{
+		return ImmutableList.copyOf(parties);
+	}
+
+	/**
+	 * Returns the number of distinct ballots.
+	 * @return the number of distinct ballots.
+	 */
+	public int noBallots()
+	{
+		return ballots.noBallots();
+	}
+
+	/**
+	 * Returns the number of voters who cast the ballots.
+	 * @return the number of voters who cast the ballots.
+	 */
+	public int noVoters()
+	{
+		return ballots.noVoters();
+	}
+
+	/**
+	 * Returns the approximate number of bytes of memory the ballots hold.
+	 * @return the approximate number of bytes of memory the ballots hold.
+	 */
+	public long memoryUsage()
+	{
+		return ballots.memoryUsage();
+	}
+
+	/**
+	 * Adds the ballots to a sink, restricted to some of the parties they rank.
+	 * @param partyArray the parties to count. The sink identifies each party
+	 * by its index in this array.
+	 * @param sink the sink to add the ballots to.
+	 * @throws IllegalStateException if the ballots do not rank one of the parties.
+	 */
+	void project(Party[] partyArray, BallotSink sink) throws IllegalStateException
+	{
+		//find each party among the parties the ballots were ranked against
+		int[] standing = new int[partyArray.length];
+		for(int i=0; i<partyArray.length; i++)
+		{
+			standing[i] = -1;
+			for(int j=0; j<parties.length; j++)
+				if(parties[j] == partyArray[i]) standing[i] = j;
+
+			if(standing[i] < 0)
+				throw new IllegalStateException("No ballots rank the party " + partyArray[i].getName());
+		}
+
+		ballots.project(standing, sink);
+	}
+}
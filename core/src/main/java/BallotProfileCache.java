@@ -0,0 +1,195 @@
+import com.google.common.collect.ImmutableList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A cache of the ballots cast by electorates, shared by elections so that
+ * several systems run over the same voters and parties rank the voters only
+ * once. Each election looks up its ballots by its voters, its seed and its
+ * parties in order, and ranks the voters only if they are not in the cache.
+ *
+ * The cache holds profiles up to a budget of memory, evicting the least
+ * recently used profiles first. Voters are identified by a 64 bit
+ * fingerprint of their values, so elections holding copies of the same
+ * voters share their ballots, and a voter table refilled with new voters
+ * never matches the ballots of its old ones. Taking the fingerprint is a
+ * single pass over the voters, far cheaper than ranking them. The cache is
+ * safe to share between threads.
+ */
+public class BallotProfileCache
+{
+	/** The number of bytes of ballots the cache may hold */
+	private final long budget;
+	/** The profiles, from least to most recently used */
+	private final LinkedHashMap<Key, BallotProfile> profiles = new LinkedHashMap<>(16, 0.75f, true);
+	/** The number of bytes of ballots the cache holds */
+	private long memoryUsage;
+
+	private long hits;
+	private long misses;
+
+	/**
+	 * Constructs a new, empty cache.
+	 * @param budget the number of bytes of ballots the cache may hold.
+	 * @throws IllegalArgumentException if the budget is negative.
+	 */
+	public BallotProfileCache(long budget) throws IllegalArgumentException
+	{
+		if(budget < 0)
+			throw new IllegalArgumentException("Negative budget: " + budget);
+
+		this.budget = budget;
+	}
+
+	/**
+	 * Returns the cached ballots of some voters over a list of parties.
+	 * @param key the voters, seed and parties.
+	 * @return the ballots, or null if they are not in the cache.
+	 */
+	synchronized BallotProfile get(Key key)
+	{
+		BallotProfile profile = profiles.get(key);
+		if(profile == null)
+			misses++;
+		else
+			hits++;
+
+		return profile;
+	}
+
+	/**
+	 * Caches the ballots of some voters over a list of parties, evicting the
+	 * least recently used ballots to stay within the budget. Ballots larger
+	 * than the whole budget are not cached.
+	 * @param key the voters, seed and parties.
+	 * @param profile the ballots.
+	 */
+	synchronized void put(Key key, BallotProfile profile)
+	{
+		long size = profile.memoryUsage();
+		if(size > budget)
+			return;
+
+		BallotProfile old = profiles.put(key, profile);
+		if(old != null)
+			memoryUsage -= old.memoryUsage();
+		memoryUsage += size;
+
+		Iterator<Map.Entry<Key, BallotProfile>> itr = profiles.entrySet().iterator();
+		while(memoryUsage > budget)
+		{
+			memoryUsage -= itr.next().getValue().memoryUsage();
+			itr.remove();
+		}
+	}
+
+	/**
+	 * Removes every profile from the cache.
+	 */
+	public synchronized void clear()
+	{
+		profiles.clear();
+		memoryUsage = 0;
+	}
+
+	/**
+	 * Returns the number of profiles in the cache.
+	 * @return the number of profiles in the cache.
+	 */
+	public synchronized int size()
+	{
+		return profiles.size();
+	}
+
+	/**
+	 * Returns the approximate number of bytes of ballots the cache holds.
+	 * @return the approximate number of bytes of ballots the cache holds.
+	 */
+	public synchronized long memoryUsage()
+	{
+		return memoryUsage;
+	}
+
+	/**
+	 * Returns the number of lookups which found their ballots in the cache.
+	 * @return the number of lookups which found their ballots in the cache.
+	 */
+	public synchronized long hits()
+	{
+		return hits;
+	}
+
+	/**
+	 * Returns the number of lookups which had to rank the voters.
+	 * @return the number of lookups which had to rank the voters.
+	 */
+	public synchronized long misses()
+	{
+		return misses;
+	}
+
+	/**
+	 * Identifies the ballots cast by some voters over a list of parties, with
+	 * ties broken from a seed. Ties are broken by the parties' positions in
+	 * the list, so the same parties in a different order are a different key.
+	 */
+	static final class Key
+	{
+		private final long votersFingerprint;
+		private final int noVoters;
+		private final long electorateFingerprint;
+		private final int electorateSize;
+		private final long filesFingerprint;
+		private final long seed;
+		private final ImmutableList<Party> parties;
+
+		/**
+		 * Constructs the key of the ballots of the given voters.
+		 * @param voters the voters stored in a table.
+		 * @param electorate the voters stored in a histogram.
+		 * @param files the voters stored in files.
+		 * @param seed the seed ties are broken from.
+		 * @param parties the parties, in the order the ballots rank them against.
+		 */
+		Key(VoterTable voters, Electorate electorate, List<ElectorateFile> files, long seed, Party[] parties)
+		{
+			this.votersFingerprint = voters.fingerprint();
+			this.noVoters = voters.size();
+			this.electorateFingerprint = electorate.fingerprint();
+			this.electorateSize = electorate.size();
+
+			//files carry the fingerprint of their voters in their header
+			long hash = files.size();
+			for(ElectorateFile file : files)
+				hash = Seeds.mix(hash, file.fingerprint());
+			this.filesFingerprint = hash;
+			this.seed = seed;
+			this.parties = ImmutableList.copyOf(parties);
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if(!(o instanceof Key))
+				return false;
+
+			Key k = (Key) o;
+			return votersFingerprint == k.votersFingerprint && noVoters == k.noVoters
+			    && electorateFingerprint == k.electorateFingerprint && electorateSize == k.electorateSize
+			    && filesFingerprint == k.filesFingerprint
+			    && seed == k.seed && parties.equals(k.parties);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			int hash = Long.hashCode(votersFingerprint);
+			hash = hash * 31 + Long.hashCode(electorateFingerprint);
+			hash = hash * 31 + Long.hashCode(filesFingerprint);
+			hash = hash * 31 + Long.hashCode(seed);
+			return hash * 31 + parties.hashCode();
+		}
+	}
+}
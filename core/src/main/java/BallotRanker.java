@@ -0,0 +1,206 @@
+
+import java.util.SplittableRandom;
+
+/**
+ * Ranks parties on behalf of voters without creating any objects. The ranker
+ * owns its scratch arrays, so each thread needs its own instance.
+ */
+class BallotRanker
+{
+	//The policies and competence of the parties being ranked, by party index
+	private final int[] socPol;
+	private final int[] econPol;
+	private final int[] competence;
+	/** The utility of each party for the voter currently being ranked */
+	private final int[] utilities;
+	/** The party indices in descending order of preference */
+	private final int[] ranking;
+	/** The random number generator used to break ties */
+	private final SplittableRandom randGen;
+	/** Whether any parties were equally preferred in the current ranking */
+	private boolean tied;
+
+	/**
+	 * Constructs a new ranker for the given parties.
+	 * @param parties the parties to be ranked.
+	 * @param randGen the random number generator used to break ties.
+	 * @throws IllegalArgumentException if there are more than {@link Voter#MAX_RANKED_PARTIES} parties.
+	 */
+	BallotRanker(Party[] parties, SplittableRandom randGen) throws IllegalArgumentException
+	{
+		int n = parties.length;
+		if(n > Voter.MAX_RANKED_PARTIES)
+			throw new IllegalArgumentException("Too many parties to rank: " + n);
+
+		this.socPol = new int[n];
+		this.econPol = new int[n];
+		this.competence = new int[n];
+		for(int i=0; i<n; i++)
+		{
+			socPol[i] = parties[i].getSocialPolicy();
+			econPol[i] = parties[i].getEconomicPolicy();
+			competence[i] = parties[i].getCompetence();
+		}
+
+		this.utilities = new int[parties.length];
+		this.ranking = new int[parties.length];
+		this.randGen = randGen;
+	}
+
+	/**
+	 * Ranks the parties for a voter with the given preferences and ratios.
+	 * Parties with equal utility are ordered randomly.
+	 * @return the party indices in descending order of preference. The array
+	 * is reused by the next call.
+	 */
+	int[] rank(int socPref, int econPref, int prefRatio, int compRatio)
+	{
+		int n = utilities.length;
+
+		for(int i=0; i<n; i++)
+		{
+			utilities[i] = Voter.utilityValue(socPref, econPref, prefRatio, compRatio,
+			                                  socPol[i], econPol[i], competence[i]);
+			ranking[i] = key(utilities[i], i);
+		}
+
+		tied = sortKeys(ranking, n, randGen);
+
+		return ranking;
+	}
+
+	/**
+	 * Packs a party's utility and index into a key. Keys sort above the keys
+	 * of less preferred parties, and of equally preferred parties with higher
+	 * indices. Utilities lie within -100 to 100.
+	 * @param utility the utility of the party.
+	 * @param index the index of the party, less than {@link Voter#MAX_RANKED_PARTIES}.
+	 * @return the key of the party.
+	 */
+	static int key(int utility, int index)
+	{
+		return (utility + 128) << 16 | (0xFFFF - index);
+	}
+
+	/**
+	 * Ranks parties from their keys. The keys are sorted by descending
+	 * utility, each run of equally preferred parties is shuffled, and each key
+	 * is replaced by its party's index. Every ballot is ranked this way,
+	 * whether by a ranker or by {@link Voter#rankParties}.
+	 * @param ranking the keys of the parties, replaced by the party indices in
+	 * descending order of preference.
+	 * @param n the number of parties.
+	 * @param randGen the random number generator used to break ties.
+	 * @return whether any parties were equally preferred.
+	 */
+	static boolean sortKeys(int[] ranking, int n, SplittableRandom randGen)
+	{
+		//insertion sort by descending key, there are only a handful of parties
+		for(int i=1; i<n; i++)
+		{
+			int key = ranking[i];
+			int j = i;
+			while(j > 0 && ranking[j-1] < key)
+			{
+				ranking[j] = ranking[j-1];
+				j--;
+			}
+			ranking[j] = key;
+		}
+
+		//shuffle each run of equally preferred parties
+		boolean tied = false;
+		int start = 0;
+		for(int i=1; i<=n; i++)
+		{
+			if(i == n || ranking[i] >>> 16 != ranking[start] >>> 16)
+			{
+				for(int j=i-1; j>start; j--)
+				{
+					int k = start + randGen.nextInt(j - start + 1);
+					int tmp = ranking[j];
+					ranking[j] = ranking[k];
+					ranking[k] = tmp;
+				}
+				tied |= i - start > 1;
+				start = i;
+			}
+		}
+
+		//drop the utilities, leaving the party indices
+		for(int i=0; i<n; i++)
+			ranking[i] = 0xFFFF - (ranking[i] & 0xFFFF);
+
+		return tied;
+	}
+
+	/**
+	 * Ranks the parties for a number of voters sharing the given preferences
+	 * and ratios and adds their ballots to a sink. If some parties are
+	 * equally preferred, each voter breaks the tie independently at random.
+	 * The ballots are counted exactly as if every voter had been ranked on
+	 * its own, but in time independent of the number of voters.
+	 * @param sink the sink to add the ballots to.
+	 * @param weight the number of voters sharing the preferences and ratios.
+	 */
+	void count(BallotSink sink, int socPref, int econPref, int prefRatio, int compRatio, int weight)
+	{
+		rank(socPref, econPref, prefRatio, compRatio);
+
+		if(!tied || weight == 1)
+			sink.addBallot(ranking, weight);
+		else
+			distributeTies(sink, 0, weight);
+	}
+
+	/**
+	 * Splits a number of voters over the orders of the tied parties from the
+	 * given position in the ranking on. The voters are split multinomially
+	 * over which tied party each puts first, and each share is then split
+	 * over the remaining tied parties in the same way.
+	 */
+	private void distributeTies(BallotSink sink, int pos, int weight)
+	{
+		int n = ranking.length;
+
+		//find the next run of equally preferred parties
+		while(pos < n-1 && utilities[ranking[pos]] != utilities[ranking[pos+1]])
+			pos++;
+
+		if(pos >= n-1)
+		{
+			sink.addBallot(ranking, weight);
+			return;
+		}
+
+		int end = pos + 1;
+		while(end < n && utilities[ranking[end]] == utilities[ranking[pos]])
+			end++;
+
+		//give each tied party its share of first places within the run
+		int runLength = end - pos;
+		int remaining = weight;
+		for(int i=0; i<runLength && remaining>0; i++)
+		{
+			int share = i == runLength-1 ? remaining : Sampling.binomial(randGen, remaining, 1.0 / (runLength - i));
+			if(share == 0)
+				continue;
+
+			remaining -= share;
+
+			swap(pos, pos + i);
+			distributeTies(sink, pos + 1, share);
+			swap(pos, pos + i);
+		}
+	}
+
+	/**
+	 * Swaps two positions of the current ranking.
+	 */
+	private void swap(int i, int j)
+	{
+		int tmp = ranking[i];
+		ranking[i] = ranking[j];
+		ranking[j] = tmp;
+	}
+}
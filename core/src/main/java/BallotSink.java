@@ -0,0 +1,12 @@
+/**
+ * A destination for counted ballots.
+ */
+interface BallotSink
+{
+	/**
+	 * Adds a number of identical ballots to the sink.
+	 * @param ranking the party indices in descending order of preference.
+	 * @param weight the number of ballots with this ranking.
+	 */
+	void addBallot(int[] ranking, int weight);
+}
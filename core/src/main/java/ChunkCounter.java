@@ -0,0 +1,22 @@
+/**
+ * A source of ballots split into numbered chunks, each of which can be
+ * counted independently of the others. Each chunk must draw its random
+ * numbers from a generator derived only from the election seed and the
+ * chunk's number, so the total does not depend on how the chunks are
+ * scheduled.
+ */
+interface ChunkCounter
+{
+	/**
+	 * Returns the number of chunks.
+	 * @return the number of chunks.
+	 */
+	int noChunks();
+
+	/**
+	 * Counts the ballots of a single chunk.
+	 * @param chunk the chunk to count, from 0 to noChunks() - 1.
+	 * @param sink the sink the ballots in the chunk are added to.
+	 */
+	void count(int chunk, BallotSink sink);
+}
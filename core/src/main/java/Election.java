@@ -0,0 +1,835 @@
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Formatter;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+
+public class Election
+{
+	/** The number of voters from which voters are grouped by profile before ranking. */
+	private static final int GROUPING_THRESHOLD = 1 << 18;
+
+	/** A variable to keep track of whether the election has been run. */
+	protected boolean isComplete;
+	/** The set of parties participating in this election. */
+	private Set<Party> parties;
+	/** The parties participating in this election, indexed by their ids. */
+	private final List<Party> partiesById;
+	/** The id of each party participating in this election. */
+	private final Map<Party, Integer> partyIds;
+	/** The voters participating in this election, stored column by column. */
+	private VoterTable voters;
+	/** The voters added to this election as a weighted histogram of profiles. */
+	private Electorate electorate;
+	/** The voters added to this election as memory mapped files. */
+	private final List<ElectorateFile> voterFiles;
+	/** Ballots cast in advance, counted instead of ranking the voters, or null. */
+	private BallotProfile ballots;
+	/** The preferences of voters who cast ballots in advance but are not held, or null. */
+	private PreferenceGrid ballotVoters;
+	/** A cache of ballots shared with other elections, or null. */
+	private BallotProfileCache ballotCache;
+	/** An index of the voters by preference, built when first needed, or null. */
+	private PreferenceGrid grid;
+	/** Statistics about the voters, computed when first needed, or null. */
+	private ElectorateStats stats;
+
+	private ImmutableList<PartyWithVotes> electionResults;
+	/** The results the dense votes were read from, or null. */
+	private List<PartyWithVotes> indexedResults;
+	/** The votes for each party in the results, indexed by id * noParties() + choice - 1. */
+	private int[] resultVotes;
+
+	/** The seed from which all random tie-breaking in this election is derived. */
+	private long seed;
+	/** The number of threads used to count the votes. */
+	private int parallelism;
+
+	/**
+	 * Constructs a new election.
+	 */
+	public Election()
+	{
+		parties = new HashSet<>();
+		partiesById = new ArrayList<>();
+		partyIds = new IdentityHashMap<>();
+		voters  = new VoterTable();
+		electorate = new Electorate();
+		voterFiles = new ArrayList<>();
+		seed = new Random().nextLong();
+		parallelism = 1;
+	}
+
+	/**
+	 * Adds a voter to the set of voters. Voters are stored by value, so adding
+	 * the same voter twice counts it twice.
+	 * @param v the voter to be added.
+	 * @return true, since the set of voters is always changed by this addition.
+	 */
+	public boolean addVoter(Voter v)
+	{
+		voters.add(v);
+		votersChanged();
+		return true;
+	}
+
+	/**
+	 * Returns an immutable set containing the voters currently participating in this election.
+	 * The voters are rebuilt from the voter table and the electorate, so this is expensive
+	 * for large elections.
+	 * @return an immutable set containing the voters current participating in this election.
+	 */
+	public ImmutableSet<Voter> getVoters()
+	{
+		ImmutableSet.Builder<Voter> setBuilder = ImmutableSet.builder();
+		for(int i=0; i<voters.size(); i++)
+			setBuilder.add(voters.getVoter(i));
+
+		int[] profiles = electorate.sortedProfiles();
+		int[] counts = electorate.sortedCounts();
+		for(int i=0; i<profiles.length; i++)
+			for(int j=0; j<counts[i]; j++)
+				setBuilder.add(VoterProfile.toVoter(profiles[i]));
+
+		for(ElectorateFile file : voterFiles)
+			for(int i=0; i<file.size(); i++)
+				setBuilder.add(file.getVoter(i));
+
+		return setBuilder.build();
+	}
+
+	/**
+	 * Returns the table holding the voters participating in this election.
+	 * @return the table holding the voters participating in this election.
+	 */
+	protected VoterTable voterTable()
+	{
+		return voters;
+	}
+
+	/**
+	 * Returns the histogram of the voters added to this election as an electorate.
+	 * @return the histogram of the voters added to this election as an electorate.
+	 */
+	protected Electorate electorate()
+	{
+		return electorate;
+	}
+
+	/**
+	 * Makes a table the voters participating in this election, replacing any
+	 * voters added to the table so far. The table is shared rather than
+	 * copied, so it must not change until the election has been run.
+	 * @param table the table of voters.
+	 */
+	void shareVoters(VoterTable table)
+	{
+		voters = table;
+		votersChanged();
+	}
+
+	/**
+	 * Makes an electorate the voters participating in this election, replacing
+	 * any voters added to the electorate so far. The electorate is shared
+	 * rather than copied, so it must not change until the election has been run.
+	 * @param e the electorate.
+	 */
+	void shareElectorate(Electorate e)
+	{
+		electorate = e;
+		votersChanged();
+	}
+
+	/**
+	 * Makes this election count ballots cast in advance instead of ranking its
+	 * voters. The voters are still used for statistics, so they must be the
+	 * voters who cast the ballots.
+	 * @param ballots the ballots cast in advance.
+	 * @param ballotParties the parties the ballots were ranked against, in order.
+	 */
+	void shareBallots(BallotBox ballots, Party[] ballotParties)
+	{
+		this.ballots = new BallotProfile(ballotParties, ballots);
+	}
+
+	/**
+	 * Makes this election count ballots cast in advance by voters it does not
+	 * hold, such as the ballots counted from a CSV file by
+	 * {@link VoterCsv#countBallots}. The ballots are counted instead of
+	 * ranking any voters the election holds, so it should hold none, and the
+	 * statistics about the voters are taken from the grid of their preferences.
+	 * @param ballots the ballots cast in advance.
+	 * @param voters the preferences of the voters who cast the ballots.
+	 */
+	public void setBallots(BallotProfile ballots, PreferenceGrid voters)
+	{
+		this.ballots = ballots;
+		this.ballotVoters = voters;
+		votersChanged();
+	}
+
+	/**
+	 * Makes this election look up its ballots in a cache shared with other
+	 * elections, and add them to the cache if they are not there. Elections
+	 * over the same voters and parties, with the same seed, then rank the
+	 * voters only once between them, whatever their electoral systems.
+	 * @param cache the cache, or null to always rank the voters.
+	 */
+	public void setBallotCache(BallotProfileCache cache)
+	{
+		ballotCache = cache;
+	}
+
+	/**
+	 * Discards the index of the voters and the statistics about them, to be
+	 * rebuilt from the current voters when next needed. Called whenever the
+	 * voters change.
+	 */
+	protected void votersChanged()
+	{
+		grid = null;
+		stats = null;
+	}
+
+	/**
+	 * Returns an immutable set containing the parties currently participating in this election.
+	 * @return an immutable set containing the parties currently participating in this election.
+	 */
+	public ImmutableSet<Party> getParties()
+	{
+		return ImmutableSet.<Party>builder().addAll(partiesById).build();
+	}
+
+	/**
+	 * Returns the parties participating in this election in an array indexed
+	 * by their ids. The order is the order the parties were added in, so
+	 * ballots ranked against the array, and the tie-breaking they depend on,
+	 * are the same whenever the election is run with the same seed.
+	 * @return a new array of the parties, indexed by their ids.
+	 */
+	protected Party[] partyArray()
+	{
+		return partiesById.toArray(new Party[partiesById.size()]);
+	}
+
+	/**
+	 * Adds the voters in an array to the set of voters.
+	 * @param vArr the array of voters to be added.
+	 * @return true if the set of voters was changed by this addition, false otherwise.
+	 */
+	public boolean addVoters(Voter[] vArr)
+	{
+		return addVoters(Arrays.asList(vArr));
+	}
+
+	/**
+	 * Adds the voters in a collection to the set of voters.
+	 * @param vCol the collection of voters to be added.
+	 * @return true if the set of voters was changed by this addition, false otherwise.
+	 */
+	public boolean addVoters(Collection<Voter> vCol)
+	{
+		voters.ensureCapacity(voters.size() + vCol.size());
+		for(Voter v : vCol)
+			voters.add(v);
+		votersChanged();
+
+		return !vCol.isEmpty();
+	}
+
+	/**
+	 * Adds the voters in a voter table to the set of voters.
+	 * @param table the table of voters to be added.
+	 * @return true if the set of voters was changed by this addition, false otherwise.
+	 */
+	public boolean addVoters(VoterTable table)
+	{
+		voters.addAll(table);
+		votersChanged();
+		return table.size() > 0;
+	}
+
+	/**
+	 * Adds the voters in an electorate to the set of voters. The voters stay
+	 * grouped by profile, so memory use does not grow with their number.
+	 * @param e the electorate whose voters are to be added.
+	 * @return true if the set of voters was changed by this addition, false otherwise.
+	 */
+	public boolean addVoters(Electorate e)
+	{
+		electorate.addAll(e);
+		votersChanged();
+		return e.size() > 0;
+	}
+
+	/**
+	 * Adds the voters in an electorate file to the set of voters. The voters
+	 * are read from the file's mapping whenever they are counted, so they
+	 * take no space on the heap. The parties and seed stored in the file are
+	 * not used.
+	 * @param file the file whose voters are to be added.
+	 * @return true if the set of voters was changed by this addition, false otherwise.
+	 */
+	public boolean addVoters(ElectorateFile file)
+	{
+		voterFiles.add(file);
+		votersChanged();
+		return file.size() > 0;
+	}
+
+	/**
+	 * Adds a party to the set of parties.
+	 * @param p the party to be added.
+	 * @return true if the set of parties was changed by this addition, false otherwise.
+	 */
+	public boolean addParty(Party p)
+	{
+		if(!parties.add(p))
+			return false;
+
+		partyIds.put(p, partiesById.size());
+		partiesById.add(p);
+		return true;
+	}
+
+	/**
+	 * Adds the parties in an array to the set of parties.
+	 * @param pArr the array of parties to be added.
+	 * @return true if the set of parties was changed by this addition, false otherwise.
+	 */
+	public boolean addParties(Party[] pArr)
+	{
+		return addParties(Arrays.asList(pArr));
+	}
+
+	/**
+	 * Adds the parties in a collection to the set of parties.
+	 * @param pCol the collection of parties to be added.
+	 * @return true if the set of parties was changed by this addition, false otherwise.
+	 */
+	public boolean addParties(Collection<Party> pCol)
+	{
+		boolean changed = false;
+		for(Party p : pCol)
+			changed |= addParty(p);
+
+		return changed;
+	}
+
+	/**
+	 * Returns the id of a party participating in this election. Parties are
+	 * numbered from 0 in the order they were added.
+	 * @param p the party.
+	 * @return the id of the party.
+	 * @throws IllegalArgumentException if the party is not participating in this election.
+	 */
+	public int partyId(Party p) throws IllegalArgumentException
+	{
+		Integer id = partyIds.get(p);
+		if(id == null)
+			throw new IllegalArgumentException("Party " + p.getName() + " is not participating in this election");
+
+		return id;
+	}
+
+	/**
+	 * Returns the party participating in this election with the given id.
+	 * @param id the id of the party.
+	 * @return the party with the given id.
+	 * @throws IndexOutOfBoundsException if no party has the given id.
+	 */
+	public Party getParty(int id) throws IndexOutOfBoundsException
+	{
+		return partiesById.get(id);
+	}
+
+	/**
+	 * Returns the average social preference of the voters in the voter set.
+	 * @return the average social preference of the voters in the voter set.
+	 */
+	public double avgSocialPreference()
+	{
+		return electorateStats().avgSocialPreference();
+	}
+
+	/**
+	 * Returns the average Economic preference of the voters in the voter set.
+	 * @return the average Economic preference of the voters in the voter set.
+	 */
+	public double avgEconomicPreference()
+	{
+		return electorateStats().avgEconomicPreference();
+	}
+
+	/**
+	 * Returns the average euclidian preference distance of the voters in the voter set to the provided party.
+	 * @param p the party from which the average distance is calculated.
+	 * @return the average euclidian preference distance of the voters in the voter set to the provided party.
+	 */
+	public double avgDistanceFromParty(Party p)
+	{
+		return electorateStats().avgDistanceFromParty(p);
+	}
+
+	/**
+	 * Returns an index of the voters participating in this election by their
+	 * social and economic preferences. Queries against it take time
+	 * proportional to the size of the preference grid rather than the number
+	 * of voters. The grid is built when first needed and kept until the voters
+	 * change, and must not be modified.
+	 * @return an index of the voters by their preferences.
+	 */
+	public PreferenceGrid preferenceGrid()
+	{
+		if(grid == null)
+		{
+			PreferenceGrid g = new PreferenceGrid();
+			g.add(voters);
+			g.add(electorate);
+			for(ElectorateFile file : voterFiles)
+				g.add(file);
+			if(ballotVoters != null)
+				g.addAll(ballotVoters);
+			grid = g;
+		}
+
+		return grid;
+	}
+
+	/**
+	 * Returns statistics about the voters participating in this election,
+	 * including their average distance to each party. The statistics are
+	 * computed in a single pass when first needed, and kept until the voters
+	 * change. Distances to parties added afterwards are measured when asked for.
+	 * @return statistics about the voters participating in this election.
+	 */
+	public ElectorateStats electorateStats()
+	{
+		if(stats == null)
+			stats = new ElectorateStats(preferenceGrid(), partyArray());
+
+		return stats;
+	}
+
+	/**
+	 * Returns the average social policy of the parties in the party set.
+	 * @return the average social policy of the parties in the party set.
+	 */
+	public double avgSocialPolicy()
+	{
+		int sum = 0;
+		for(Party p : parties)
+			sum += p.getSocialPolicy();
+
+		return sum / (double) parties.size();
+	}
+
+	/**
+	 * Returns the average economic policy of the parties in the party set.
+	 * @return the average economic policy of the parties in the party set.
+	 */
+	public double avgEconomicPolicy()
+	{
+		int sum = 0;
+		for(Party p : parties)
+			sum += p.getEconomicPolicy();
+
+		return sum / (double) parties.size();
+	}
+
+	/**
+	 * Sets the seed from which all random tie-breaking in this election is
+	 * derived. Running the same election with the same seed always gives the
+	 * same results, whatever the parallelism.
+	 * @param seed the seed.
+	 */
+	public void setSeed(long seed)
+	{
+		this.seed = seed;
+	}
+
+	/**
+	 * Returns the seed from which all random tie-breaking in this election is derived.
+	 * @return the seed from which all random tie-breaking in this election is derived.
+	 */
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	/**
+	 * Sets the number of threads used to count the votes when running the election.
+	 * @param parallelism the number of threads, 1 to count on the calling thread.
+	 * @throws IllegalArgumentException if the parallelism is less than 1.
+	 */
+	public void setParallelism(int parallelism) throws IllegalArgumentException
+	{
+		if(parallelism < 1)
+			throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Returns the number of threads used to count the votes.
+	 * @return the number of threads used to count the votes.
+	 */
+	public int getParallelism()
+	{
+		return parallelism;
+	}
+
+	/**
+	 * Runs the election, stores the results, and sets the complete flag to true.
+	 * The voters are split into fixed chunks which are counted on
+	 * {@link #getParallelism()} threads, each chunk into its own tally.
+	 */
+	public void run()
+	{
+		Party[] partyArray = partyArray();
+
+		//store the results of all parties in descending order
+		electionResults = count(partyArray, new Tally(partyArray.length)).results(partyArray);
+
+		isComplete = true;
+	}
+
+	/**
+	 * Ranks every voter participating in this election against the given
+	 * parties, once, and returns the distinct ballots cast. Elections with
+	 * several rounds can recount these ballots over the parties left in each
+	 * round instead of ranking the voters again.
+	 * @param partyArray the parties to rank, which the ballots identify by index.
+	 * @return the distinct ballots cast, with the number of voters casting each.
+	 */
+	protected BallotBox countBallots(Party[] partyArray)
+	{
+		return count(partyArray, new BallotBox(partyArray.length));
+	}
+
+	/**
+	 * Counts the ballots of every voter over the given parties into a copy of
+	 * an empty sink. The ballots cast in advance or found in the ballot cache
+	 * are counted if there are any, and the voters are ranked otherwise.
+	 */
+	private <S extends BallotCount<S>> S count(Party[] partyArray, S empty)
+	{
+		BallotProfile profile = ballots;
+		if(profile == null && ballotCache != null)
+		{
+			BallotProfileCache.Key key = new BallotProfileCache.Key(voters, electorate, voterFiles, seed, partyArray);
+			profile = ballotCache.get(key);
+			if(profile == null)
+			{
+				profile = new BallotProfile(partyArray.clone(), rank(partyArray, new BallotBox(partyArray.length)));
+				ballotCache.put(key, profile);
+			}
+		}
+
+		if(profile != null)
+		{
+			S sink = empty.emptyCopy();
+			profile.project(partyArray, sink);
+			return sink;
+		}
+
+		return rank(partyArray, empty);
+	}
+
+	/**
+	 * Ranks every voter against the given parties and counts the ballots
+	 * into a copy of an empty sink.
+	 */
+	private <S extends BallotCount<S>> S rank(Party[] partyArray, S empty)
+	{
+		//grouping has a fixed cost, but beyond a few hundred thousand voters
+		//it pays for itself through repeated profiles and better locality
+		ChunkCounter counter;
+		if(voters.size() >= GROUPING_THRESHOLD)
+			counter = new ProfileGroups(voters, partyArray, seed);
+		else
+			counter = new VoterTableCounter(voters, partyArray, seed);
+
+		S sink = TallyTask.countAll(counter, empty, parallelism);
+
+		//the electorate is counted with its own seed, so its chunks do not
+		//reuse the random numbers of the voter table's chunks
+		if(electorate.size() > 0)
+			sink.merge(TallyTask.countAll(new ElectorateCounter(electorate, partyArray, Seeds.mix(seed, Long.MIN_VALUE)), empty, parallelism));
+
+		//and so is each file, read straight from its mapping. A file is
+		//counted exactly as a table of the same voters, so a file alone
+		//takes the table's seed and gives the same ballots as its voters
+		//would from a table
+		for(int i=0; i<voterFiles.size(); i++)
+		{
+			ElectorateFile file = voterFiles.get(i);
+			long fileSeed = i == 0 && voters.size() == 0 ? seed : Seeds.mix(seed, Long.MIN_VALUE + 1 + i);
+			if(file.size() >= GROUPING_THRESHOLD)
+				counter = new ProfileGroups(file, partyArray, fileSeed);
+			else
+				counter = new ElectorateFileCounter(file, partyArray, fileSeed);
+
+			sink.merge(TallyTask.countAll(counter, empty, parallelism));
+		}
+
+		return sink;
+	}
+
+	/**
+	 * Returns the results of this election.
+	 * @return A list of parties with votes sorted in descending order.
+	 * @throws IncompleteElectionException if the election is not complete.
+	 */
+	public ImmutableList<PartyWithVotes> results() throws IncompleteElectionException
+	{
+		if(!isComplete) throw new IncompleteElectionException();
+
+		return electionResults;
+	}
+
+	/**
+	 * Returns the results of the first round of this election, which hold the
+	 * voters' first preferences over all the parties. For single round
+	 * elections these are the same as {@link #results()}.
+	 * @return A list of parties with votes sorted in descending order.
+	 * @throws IncompleteElectionException if the election is not complete.
+	 */
+	public ImmutableList<PartyWithVotes> firstRoundResults() throws IncompleteElectionException
+	{
+		return results();
+	}
+
+	/**
+	 * Returns the number of votes for this party with a certain choice.
+	 * @param p the party whose votes to count.
+	 * @param choice count only votes representing this choice.
+	 * @return the number of votes for this party as a first choice.
+	 * @throws IncompleteElectionException if the election hasn't been run.
+	 */
+	public int votesForParty(Party p, int choice) throws IncompleteElectionException
+	{
+		Integer id = partyIds.get(p);
+		if(id == null)
+			return 0;
+
+		return votesForParty(id, choice);
+	}
+
+	/**
+	 * Returns the number of votes for the party with the given id with a
+	 * certain choice. This is a single array read.
+	 * @param partyId the id of the party whose votes to count.
+	 * @param choice count only votes representing this choice.
+	 * @return the number of votes for this party with the given choice.
+	 * @throws IncompleteElectionException if the election hasn't been run.
+	 */
+	public int votesForParty(int partyId, int choice) throws IncompleteElectionException
+	{
+		int[] votes = resultVotes();
+		int n = partiesById.size();
+		if(choice < 1 || choice > n)
+			return 0;
+
+		return votes[partyId * n + choice - 1];
+	}
+
+	/**
+	 * Returns the percentage of votes for this party with a certain choice out of
+	 * all the votes for that choice.
+	 * @param p the party whose votes to count.
+	 * @param choice count only votes representing this choice.
+	 * @return a number from 0-100 representing the percentage of votes.
+	 * @throws IncompleteElectionException if the election hasn't been run.
+	 */
+	public double percentageVotesForParty(Party p, int choice) throws IncompleteElectionException
+	{
+		return 100.0*votesForParty(p, choice)/noVoters();
+	}
+
+	/**
+	 * Returns the votes for every party in the results, indexed by party id
+	 * and choice. They are read from the results again whenever the results
+	 * or the parties change.
+	 */
+	private int[] resultVotes() throws IncompleteElectionException
+	{
+		List<PartyWithVotes> results = results();
+		int n = partiesById.size();
+		if(results != indexedResults || resultVotes.length != n * n)
+		{
+			int[] votes = new int[n * n];
+			for(PartyWithVotes p : results)
+			{
+				int row = partyIds.get(p.getParty()) * n;
+				for(int choice=1; choice<=n; choice++)
+					votes[row + choice - 1] = p.getVotes(choice);
+			}
+
+			resultVotes = votes;
+			indexedResults = results;
+		}
+
+		return resultVotes;
+	}
+
+	public ImmutableList<PartyWithDoubleValue> seatResults() throws IncompleteElectionException
+	{
+		ImmutableList.Builder<PartyWithDoubleValue> listBuilder = ImmutableList.builder();
+
+		for(PartyWithVotes p : results())
+			listBuilder.add(new PartyWithDoubleValue(p.getParty(), 100.0*p.getVotes(1)/noVoters()));
+
+		return listBuilder.build();
+	}
+
+	/**
+	 * Returns whether the election is complete.
+	 * @return true if the election is complete, false otherwise.
+	 */
+	public boolean isComplete()
+	{
+		return isComplete;
+	}
+
+	/**
+	 * Returns a string with the results of this election.
+	 * @return a string with the results of this election.
+	 */
+	@Override
+	public String toString()
+	{
+		StringBuilder buffer = new StringBuilder();
+		try
+		{
+			writeReport(buffer);
+		}
+		catch(IOException e)
+		{
+			//a StringBuilder never throws
+			throw new AssertionError(e);
+		}
+
+		return buffer.toString();
+	}
+
+	/**
+	 * Writes a report of the results of this election, the same as
+	 * {@link #toString()}, directly to a stream. The voter statistics in the
+	 * report are kept between reports, so writing the report again costs no
+	 * more than formatting it.
+	 * @param out the stream the report is written to.
+	 * @throws IOException if writing to the stream fails.
+	 */
+	public void writeReport(Appendable out) throws IOException
+	{
+		if(!isComplete())
+		{
+			out.append("This election isn't complete.");
+			return;
+		}
+
+		writeResults(out);
+		writeVoterStats(out);
+
+		Party winningParty = results().get(0).getParty();
+		out.append("Average distance from winning party: ")
+		   .append(Double.toString(electorateStats().avgDistanceFromParty(winningParty))).append('\n');
+	}
+
+	/**
+	 * Writes the part of the report holding the results of each party, which
+	 * is followed by the voter statistics.
+	 * @param out the stream the results are written to.
+	 * @throws IOException if writing to the stream fails.
+	 */
+	protected void writeResults(Appendable out) throws IOException
+	{
+		out.append("Generic Election Results\n")
+		   .append("========================\n");
+		for(PartyWithVotes p : results())
+			out.append(p.toString()).append('\n');
+	}
+
+	/**
+	 * Returns a string with statistics about the voters in this election.
+	 * @return a string with statistics about the voters in this election.
+	 */
+	public String voterStats()
+	{
+		StringBuilder buffer = new StringBuilder();
+		try
+		{
+			writeVoterStats(buffer);
+		}
+		catch(IOException e)
+		{
+			//a StringBuilder never throws
+			throw new AssertionError(e);
+		}
+
+		return buffer.toString();
+	}
+
+	/**
+	 * Writes statistics about the voters in this election to a stream.
+	 * @param out the stream the statistics are written to.
+	 * @throws IOException if writing to the stream fails.
+	 */
+	protected void writeVoterStats(Appendable out) throws IOException
+	{
+		ElectorateStats stats = electorateStats();
+		out.append("Voter statistics:\n")
+		   .append("Average Economic Pref: ").append(Double.toString(stats.avgEconomicPreference())).append('\n')
+		   .append("Average Social Pref: ").append(Double.toString(stats.avgSocialPreference())).append('\n');
+	}
+
+	/**
+	 * Writes formatted text to a stream, rethrowing any failure to write.
+	 * @param out the stream the text is written to.
+	 * @param format the format string, as for {@link String#format}.
+	 * @param args the arguments referenced by the format string.
+	 * @throws IOException if writing to the stream fails.
+	 */
+	protected static void format(Appendable out, String format, Object... args) throws IOException
+	{
+		Formatter f = new Formatter(out);
+		f.format(format, args);
+		if(f.ioException() != null)
+			throw f.ioException();
+	}
+
+	/**
+	 * Returns the number of voters participating in the election.
+	 * @return the number of voters participating in the election.
+	 */
+	public int noVoters()
+	{
+		int noVoters = Math.addExact(voters.size(), electorate.size());
+		for(ElectorateFile file : voterFiles)
+			noVoters = Math.addExact(noVoters, file.size());
+		if(ballotVoters != null)
+			noVoters = Math.addExact(noVoters, Math.toIntExact(ballotVoters.size()));
+
+		return noVoters;
+	}
+
+	/**
+	 * Returns the number of parties participating in the election.
+	 * @return the number of parties participating in the election.
+	 */
+	public int noParties()
+	{
+		return parties.size();
+	}
+}
\ No newline at end of file
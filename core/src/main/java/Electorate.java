@@ -0,0 +1,359 @@
+
+import java.util.Arrays;
+
+/**
+ * A weighted histogram of voter profiles. Voters sharing a profile are
+ * stored once with a count, so the memory used depends on the number of
+ * distinct profiles rather than the number of voters.
+ *
+ * The histogram is a sparse open addressing hash table keyed by packed
+ * profile (see {@link VoterProfile}). Counting and statistics walk the
+ * profiles in ascending order, so two electorates holding the same voters
+ * always give the same results, whatever order the voters were added in.
+ */
+public class Electorate
+{
+	/** Marks an empty slot in the hash table */
+	private static final int EMPTY = -1;
+	/** The default number of distinct profiles to allocate space for */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/** The profiles in the hash table, or EMPTY */
+	private int[] keys;
+	/** The number of voters with each profile in the hash table */
+	private int[] counts;
+	/** The number of distinct profiles */
+	private int noProfiles;
+	/** The total number of voters */
+	private int size;
+
+	//The profiles and their counts in ascending order of profile, or null
+	//if the electorate has changed since they were last sorted
+	private int[] sortedProfiles;
+	private int[] sortedCounts;
+
+	/**
+	 * Constructs a new, empty electorate.
+	 */
+	public Electorate()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new, empty electorate able to hold the given number of
+	 * distinct profiles before having to grow.
+	 * @param expectedProfiles the number of distinct profiles to allocate space for.
+	 * @throws IllegalArgumentException if the number of profiles is negative.
+	 */
+	public Electorate(int expectedProfiles) throws IllegalArgumentException
+	{
+		if(expectedProfiles < 0)
+			throw new IllegalArgumentException("Negative capacity: " + expectedProfiles);
+
+		//keep the table at most half full
+		int capacity = Integer.highestOneBit(Math.max(expectedProfiles, DEFAULT_CAPACITY / 2) * 2 - 1) << 1;
+		keys = new int[capacity];
+		counts = new int[capacity];
+		Arrays.fill(keys, EMPTY);
+	}
+
+	/**
+	 * Adds a voter to the electorate.
+	 * @param v the voter to be added.
+	 */
+	public void add(Voter v)
+	{
+		addProfile(VoterProfile.of(v), 1);
+	}
+
+	/**
+	 * Adds a number of voters sharing the given preferences and ratios to the electorate.
+	 * @param socPref the voters' social preference.
+	 * @param econPref the voters' economic preference.
+	 * @param prefRatio the voters' preference ratio.
+	 * @param compRatio the voters' competence ratio.
+	 * @param count the number of voters to add.
+	 * @throws IllegalArgumentException if any of the values are out of range or the count is negative.
+	 */
+	public void add(int socPref, int econPref, int prefRatio, int compRatio, int count) throws IllegalArgumentException
+	{
+		//ensure everything is in range or throw an exception
+		if(socPref   < 0 || socPref   > 100)
+			throw new IllegalArgumentException("The social preference is out of range");
+		if(econPref  < 0 || econPref  > 100)
+			throw new IllegalArgumentException("The economic preference is out of range");
+		if(prefRatio < 0 || prefRatio > 100)
+			throw new IllegalArgumentException("The preference ratio is out of range");
+		if(compRatio < 0 || compRatio > 100)
+			throw new IllegalArgumentException("The competence ratio is out of range");
+
+		addProfile(VoterProfile.pack(socPref, econPref, prefRatio, compRatio), count);
+	}
+
+	/**
+	 * Adds all the voters in another electorate to this one.
+	 * @param other the electorate whose voters are to be added.
+	 */
+	public void addAll(Electorate other)
+	{
+		//grow first: copying a larger table slot by slot into a smaller one
+		//with the same hash would pile the profiles into long probe runs
+		ensureCapacity(noProfiles + other.noProfiles);
+
+		for(int slot=0; slot<other.keys.length; slot++)
+			if(other.keys[slot] != EMPTY) addProfile(other.keys[slot], other.counts[slot]);
+	}
+
+	/**
+	 * Adds all the voters in a voter table to this electorate.
+	 * @param table the table whose voters are to be added.
+	 */
+	public void addAll(VoterTable table)
+	{
+		for(int i=0; i<table.size(); i++)
+			addProfile(table.getProfile(i), 1);
+	}
+
+	/**
+	 * Adds a number of voters with a packed profile to the electorate. The
+	 * profile's values are not range checked.
+	 * @param profile the packed profile.
+	 * @param count the number of voters to add.
+	 * @throws IllegalArgumentException if the count is negative.
+	 * @throws ArithmeticException if the electorate would hold more than Integer.MAX_VALUE voters.
+	 */
+	void addProfile(int profile, int count) throws IllegalArgumentException, ArithmeticException
+	{
+		if(count < 0)
+			throw new IllegalArgumentException("Negative count: " + count);
+		if(count == 0)
+			return;
+
+		size = Math.addExact(size, count);
+		sortedProfiles = null;
+		sortedCounts = null;
+
+		int slot = find(profile);
+		if(keys[slot] == EMPTY)
+		{
+			keys[slot] = profile;
+			noProfiles++;
+
+			if(noProfiles * 2 > keys.length)
+			{
+				//the table is more than half full, so double it
+				counts[slot] = count;
+				rehash(keys.length * 2);
+				return;
+			}
+		}
+
+		counts[slot] += count;
+	}
+
+	/**
+	 * Returns the number of voters with the given preferences and ratios.
+	 * @param socPref the social preference.
+	 * @param econPref the economic preference.
+	 * @param prefRatio the preference ratio.
+	 * @param compRatio the competence ratio.
+	 * @return the number of voters with the given preferences and ratios.
+	 */
+	public int count(int socPref, int econPref, int prefRatio, int compRatio)
+	{
+		if(socPref   < 0 || socPref   > 100 || econPref  < 0 || econPref  > 100
+		|| prefRatio < 0 || prefRatio > 100 || compRatio < 0 || compRatio > 100)
+			return 0;
+
+		int slot = find(VoterProfile.pack(socPref, econPref, prefRatio, compRatio));
+		return keys[slot] == EMPTY ? 0 : counts[slot];
+	}
+
+	/**
+	 * Returns the total number of voters in the electorate.
+	 * @return the total number of voters in the electorate.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the number of distinct profiles in the electorate.
+	 * @return the number of distinct profiles in the electorate.
+	 */
+	public int noProfiles()
+	{
+		return noProfiles;
+	}
+
+	/**
+	 * Returns the sum of the social preferences of all voters in the electorate.
+	 * @return the sum of the social preferences of all voters in the electorate.
+	 */
+	public long sumSocialPreference()
+	{
+		long sum = 0;
+		for(int slot=0; slot<keys.length; slot++)
+			if(keys[slot] != EMPTY) sum += (long) counts[slot] * VoterProfile.socialPreference(keys[slot]);
+
+		return sum;
+	}
+
+	/**
+	 * Returns the sum of the economic preferences of all voters in the electorate.
+	 * @return the sum of the economic preferences of all voters in the electorate.
+	 */
+	public long sumEconomicPreference()
+	{
+		long sum = 0;
+		for(int slot=0; slot<keys.length; slot++)
+			if(keys[slot] != EMPTY) sum += (long) counts[slot] * VoterProfile.economicPreference(keys[slot]);
+
+		return sum;
+	}
+
+	/**
+	 * Returns the sum of the euclidian preference distances of all voters in
+	 * the electorate to the provided party.
+	 * @param p the party from which the distances are calculated.
+	 * @return the sum of the distances of all voters in the electorate to the party.
+	 */
+	public double sumDistanceFromParty(Party p)
+	{
+		int[] profiles = sortedProfiles();
+		int[] weights = sortedCounts();
+
+		double sum = 0;
+		for(int i=0; i<profiles.length; i++)
+		{
+			int socDis  = VoterProfile.socialPreference(profiles[i]) - p.getSocialPolicy();
+			int econDis = VoterProfile.economicPreference(profiles[i]) - p.getEconomicPolicy();
+			sum += weights[i] * Math.sqrt(socDis*socDis + econDis*econDis);
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Returns the distinct profiles in ascending order. The array is shared
+	 * and must not be modified.
+	 * @return the distinct profiles in ascending order.
+	 */
+	int[] sortedProfiles()
+	{
+		sort();
+		return sortedProfiles;
+	}
+
+	/**
+	 * Returns the number of voters with each profile, in the same order as
+	 * {@link #sortedProfiles()}. The array is shared and must not be modified.
+	 * @return the number of voters with each profile.
+	 */
+	int[] sortedCounts()
+	{
+		sort();
+		return sortedCounts;
+	}
+
+	/**
+	 * Returns a 64 bit hash of the voters in the electorate. Electorates
+	 * holding the same voters have the same fingerprint, whatever order the
+	 * voters were added in.
+	 * @return the fingerprint of the voters.
+	 */
+	long fingerprint()
+	{
+		sort();
+
+		long hash = size;
+		for(int i=0; i<noProfiles; i++)
+			hash = Long.rotateLeft(hash, 23) * 0x9E3779B97F4A7C15L + ((long) sortedProfiles[i] << 32 | sortedCounts[i]);
+
+		return Seeds.mix(hash, noProfiles);
+	}
+
+	/**
+	 * Sorts the profiles and their counts, unless they are already sorted.
+	 */
+	private void sort()
+	{
+		if(sortedProfiles != null)
+			return;
+
+		//sort each profile together with its count, packed into a long
+		long[] entries = new long[noProfiles];
+		int n = 0;
+		for(int slot=0; slot<keys.length; slot++)
+			if(keys[slot] != EMPTY) entries[n++] = (long) keys[slot] << 32 | counts[slot];
+		Arrays.sort(entries);
+
+		int[] profiles = new int[noProfiles];
+		int[] weights = new int[noProfiles];
+		for(int i=0; i<noProfiles; i++)
+		{
+			profiles[i] = (int) (entries[i] >>> 32);
+			weights[i] = (int) entries[i];
+		}
+
+		sortedProfiles = profiles;
+		sortedCounts = weights;
+	}
+
+	/**
+	 * Returns the slot holding a profile, or the empty slot where it would go.
+	 */
+	private int find(int profile)
+	{
+		//fibonacci hashing, taking as many of the product's top bits as the
+		//table needs
+		int mask = keys.length - 1;
+		int slot = (profile * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(mask);
+
+		while(keys[slot] != EMPTY && keys[slot] != profile)
+			slot = (slot + 1) & mask;
+
+		return slot;
+	}
+
+	/**
+	 * Grows the hash table so it can hold the given number of distinct
+	 * profiles while staying at most half full.
+	 */
+	private void ensureCapacity(int expectedProfiles)
+	{
+		if(expectedProfiles * 2L <= keys.length)
+			return;
+
+		int capacity = keys.length;
+		while(capacity < expectedProfiles * 2L)
+			capacity *= 2;
+
+		rehash(capacity);
+	}
+
+	/**
+	 * Moves every profile into a hash table of the given capacity.
+	 */
+	private void rehash(int capacity)
+	{
+		int[] oldKeys = keys;
+		int[] oldCounts = counts;
+
+		keys = new int[capacity];
+		counts = new int[capacity];
+		Arrays.fill(keys, EMPTY);
+
+		for(int slot=0; slot<oldKeys.length; slot++)
+		{
+			if(oldKeys[slot] == EMPTY)
+				continue;
+
+			int newSlot = find(oldKeys[slot]);
+			keys[newSlot] = oldKeys[slot];
+			counts[newSlot] = oldCounts[slot];
+		}
+	}
+}
@@ -0,0 +1,53 @@
+
+import java.util.SplittableRandom;
+
+/**
+ * Counts the ballots of an electorate in chunks of consecutive profiles,
+ * ranking each profile once for all the voters sharing it.
+ */
+class ElectorateCounter implements ChunkCounter
+{
+	/** The number of profiles in each chunk */
+	static final int CHUNK_SIZE = 1 << 12;
+
+	private final int[] profiles;
+	private final int[] weights;
+	private final Party[] parties;
+	private final long seed;
+
+	/**
+	 * Constructs a counter for the given electorate and parties.
+	 * @param electorate the electorate whose ballots are counted.
+	 * @param parties the parties being ranked.
+	 * @param seed the seed from which each chunk's random number generator is derived.
+	 */
+	ElectorateCounter(Electorate electorate, Party[] parties, long seed)
+	{
+		this.profiles = electorate.sortedProfiles();
+		this.weights = electorate.sortedCounts();
+		this.parties = parties;
+		this.seed = seed;
+	}
+
+	@Override
+	public int noChunks()
+	{
+		return (profiles.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+	}
+
+	@Override
+	public void count(int chunk, BallotSink sink)
+	{
+		BallotRanker ranker = new BallotRanker(parties, new SplittableRandom(Seeds.mix(seed, chunk)));
+
+		int from = chunk * CHUNK_SIZE;
+		int to = Math.min(from + CHUNK_SIZE, profiles.length);
+		for(int i=from; i<to; i++)
+		{
+			int profile = profiles[i];
+			ranker.count(sink, VoterProfile.socialPreference(profile), VoterProfile.economicPreference(profile),
+			             VoterProfile.preferenceRatio(profile), VoterProfile.competenceRatio(profile), weights[i]);
+		}
+
+	}
+}
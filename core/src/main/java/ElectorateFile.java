@@ -0,0 +1,456 @@
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * An electorate stored in a binary file and memory mapped, so elections can
+ * count voters far beyond the size of the heap. The voters are read straight
+ * from the mapping as they are counted and are never copied onto the heap.
+ *
+ * The file starts with a header, in big endian order:
+ *
+ * <ul>
+ * <li>the magic number 0x454C4543 ("ELEC") and the format version, 1;</li>
+ * <li>the seed ties are broken from when the voters are counted, 8 bytes;</li>
+ * <li>the number of voters, 8 bytes, or -1 if writing the file never finished;</li>
+ * <li>a fingerprint of the voters, 8 bytes;</li>
+ * <li>the number of parties, 4 bytes, followed by each party's name, as a 2
+ *     byte length and that many bytes of UTF-8, and its social policy,
+ *     economic policy and competence, 1 byte each.</li>
+ * </ul>
+ *
+ * The voters follow, 4 bytes each: the social preference, economic
+ * preference, preference ratio and competence ratio. Values are checked to
+ * be in range as the voters are read.
+ */
+public class ElectorateFile
+{
+	/** The magic number that starts every electorate file, "ELEC" */
+	private static final int MAGIC = 0x454C4543;
+	/** The version of the format */
+	private static final int VERSION = 1;
+	/** The offset of the number of voters in the header */
+	private static final int NO_VOTERS_OFFSET = 16;
+	/** The number of voters in the header of a file whose writing never finished */
+	private static final long INCOMPLETE = -1;
+	/** The number of bytes of the header before the parties */
+	private static final int FIXED_HEADER_BYTES = 36;
+	/** The number of bytes of each voter */
+	private static final int VOTER_BYTES = 4;
+	/** The number of voters in each mapped segment, 1 GiB of voters */
+	private static final int SEGMENT_VOTERS = 1 << 28;
+
+	private final ImmutableList<Party> parties;
+	private final long seed;
+	private final int size;
+	private final long fingerprint;
+	/** The voters, mapped SEGMENT_VOTERS at a time since a mapping is limited to 2 GiB */
+	private final MappedByteBuffer[] segments;
+
+	private ElectorateFile(ImmutableList<Party> parties, long seed, int size, long fingerprint, MappedByteBuffer[] segments)
+	{
+		this.parties = parties;
+		this.seed = seed;
+		this.size = size;
+		this.fingerprint = fingerprint;
+		this.segments = segments;
+	}
+
+	/**
+	 * Opens an electorate file and maps its voters into memory. The mapping
+	 * stays valid until the electorate is garbage collected.
+	 * @param path the path of the file.
+	 * @return the electorate stored in the file.
+	 * @throws IOException if the file cannot be read or is not a valid electorate file.
+	 */
+	public static ElectorateFile open(Path path) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			//the header is small, so it is read onto the heap rather than mapped
+			long fileSize = channel.size();
+			ByteBuffer header = read(channel, 0, FIXED_HEADER_BYTES, path);
+
+			try
+			{
+				if(header.getInt() != MAGIC)
+					throw new IOException("Not an electorate file: " + path);
+				int version = header.getInt();
+				if(version != VERSION)
+					throw new IOException("Unsupported electorate file version " + version + ": " + path);
+
+				long seed = header.getLong();
+				long noVoters = header.getLong();
+				long fingerprint = header.getLong();
+				if(noVoters == INCOMPLETE)
+					throw new IOException("Incomplete electorate file: " + path);
+				if(noVoters < 0 || noVoters > Integer.MAX_VALUE)
+					throw new IOException("Invalid number of voters " + noVoters + ": " + path);
+
+				int noParties = header.getInt();
+				if(noParties < 0)
+					throw new IOException("Invalid number of parties " + noParties + ": " + path);
+
+				//each party is read in two steps, since its size depends on its name
+				long position = FIXED_HEADER_BYTES;
+				ImmutableList.Builder<Party> listBuilder = ImmutableList.builder();
+				for(int i=0; i<noParties; i++)
+				{
+					int nameLength = read(channel, position, 2, path).getShort() & 0xFFFF;
+					ByteBuffer party = read(channel, position + 2, nameLength + 3, path);
+					position += 2 + nameLength + 3;
+
+					byte[] name = new byte[nameLength];
+					party.get(name);
+					listBuilder.add(new Party(new String(name, StandardCharsets.UTF_8), party.get(), party.get(), party.get()));
+				}
+
+				if(fileSize != position + noVoters * VOTER_BYTES)
+					throw new IOException("Truncated electorate file: " + path);
+
+				int size = (int) noVoters;
+				MappedByteBuffer[] segments = new MappedByteBuffer[(size + SEGMENT_VOTERS - 1) / SEGMENT_VOTERS];
+				for(int s=0; s<segments.length; s++)
+				{
+					long from = (long) s * SEGMENT_VOTERS;
+					long to = Math.min(from + SEGMENT_VOTERS, size);
+					segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, position + from * VOTER_BYTES, (to - from) * VOTER_BYTES);
+				}
+
+				return new ElectorateFile(listBuilder.build(), seed, size, fingerprint, segments);
+			}
+			catch(RuntimeException e)
+			{
+				//a party out of range
+				throw new IOException("Invalid electorate file: " + path, e);
+			}
+		}
+	}
+
+	/**
+	 * Reads a number of bytes from a position in a file into a new buffer,
+	 * positioned at its start.
+	 * @throws IOException if the file cannot be read or ends first.
+	 */
+	private static ByteBuffer read(FileChannel channel, long position, int length, Path path) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while(buffer.hasRemaining())
+		{
+			if(channel.read(buffer, position + buffer.position()) < 0)
+				throw new IOException("Truncated electorate file: " + path);
+		}
+
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Creates an electorate file and returns a writer adding voters to it.
+	 * The file is only complete once {@link Writer#finish()} is called, and
+	 * is rejected by {@link #open(Path)} if the writer is closed without it.
+	 * @param path the path of the file, replaced if it exists.
+	 * @param parties the parties to store with the voters.
+	 * @param seed the seed the voters' ties are broken from, stored with them.
+	 * @return a writer adding voters to the file.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public static Writer create(Path path, Party[] parties, long seed) throws IOException
+	{
+		return new Writer(path, parties, seed);
+	}
+
+	/**
+	 * Writes a table of voters to an electorate file.
+	 * @param path the path of the file, replaced if it exists.
+	 * @param parties the parties to store with the voters.
+	 * @param seed the seed the voters' ties are broken from, stored with them.
+	 * @param voters the voters.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public static void write(Path path, Party[] parties, long seed, VoterTable voters) throws IOException
+	{
+		try(Writer writer = create(path, parties, seed))
+		{
+			writer.addAll(voters);
+			writer.finish();
+		}
+	}
+
+	/**
+	 * Writes randomized voters to an electorate file, generating them as they
+	 * are written so that no more than a buffer of them is ever in memory.
+	 * The file holds the same voters as {@link VoterFactory#generate(int, long, int)}
+	 * returns for the same number and voter seed. The seed their ties are
+	 * broken from is stored with them, and must be independent of the voter
+	 * seed, so that counting the voters does not replay the random numbers
+	 * that drew them.
+	 * @param path the path of the file, replaced if it exists.
+	 * @param parties the parties to store with the voters.
+	 * @param n the number of voters to generate.
+	 * @param voterSeed the seed the voters are generated from.
+	 * @param countSeed the seed the voters' ties are broken from, stored with them.
+	 * @throws IOException if the file cannot be written.
+	 * @throws IllegalArgumentException if n is negative.
+	 */
+	public static void generate(Path path, Party[] parties, int n, long voterSeed, long countSeed) throws IOException, IllegalArgumentException
+	{
+		if(n < 0)
+			throw new IllegalArgumentException("Negative number of voters: " + n);
+
+		try(Writer writer = create(path, parties, countSeed))
+		{
+			SplittableRandom randGen = null;
+			for(int i=0; i<n; i++)
+			{
+				if(i % VoterFactory.CHUNK_SIZE == 0)
+					randGen = new SplittableRandom(Seeds.mix(voterSeed, i / VoterFactory.CHUNK_SIZE));
+
+				writer.addProfile(VoterFactory.randomProfile(randGen, GaussianSampler.POLAR, 0, 0));
+			}
+
+			writer.finish();
+		}
+	}
+
+	/**
+	 * Returns the parties stored with the voters.
+	 * @return the parties stored with the voters.
+	 */
+	public ImmutableList<Party> getParties()
+	{
+		return parties;
+	}
+
+	/**
+	 * Returns the seed stored with the voters, which their ties are broken from.
+	 * @return the seed stored with the voters.
+	 */
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	/**
+	 * Returns the number of voters in the file.
+	 * @return the number of voters in the file.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the fingerprint of the voters written in the header.
+	 * @return the fingerprint of the voters.
+	 */
+	long fingerprint()
+	{
+		return fingerprint;
+	}
+
+	/**
+	 * Returns a voter in the file.
+	 * @param index the index of the voter, from 0 to size() - 1.
+	 * @return the voter.
+	 * @throws IndexOutOfBoundsException if the index is out of range.
+	 * @throws IllegalStateException if the voter's values are out of range.
+	 */
+	public Voter getVoter(int index) throws IndexOutOfBoundsException, IllegalStateException
+	{
+		return VoterProfile.toVoter(getProfile(index));
+	}
+
+	/**
+	 * Returns the packed profile of a voter in the file.
+	 * @param index the index of the voter, from 0 to size() - 1.
+	 * @return the packed profile of the voter.
+	 * @throws IndexOutOfBoundsException if the index is out of range.
+	 * @throws IllegalStateException if the voter's values are out of range.
+	 */
+	int getProfile(int index) throws IndexOutOfBoundsException, IllegalStateException
+	{
+		if(index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Voter " + index + " of " + size);
+
+		int record = segments[index / SEGMENT_VOTERS].getInt((index % SEGMENT_VOTERS) * VOTER_BYTES);
+
+		int socPref   = record >>> 24;
+		int econPref  = record >>> 16 & 0xFF;
+		int prefRatio = record >>> 8 & 0xFF;
+		int compRatio = record & 0xFF;
+		if(socPref > 100 || econPref > 100 || prefRatio > 100 || compRatio > 100)
+			throw new IllegalStateException("Voter " + index + " is out of range");
+
+		return VoterProfile.pack(socPref, econPref, prefRatio, compRatio);
+	}
+
+	/**
+	 * Writes voters to a new electorate file, through a buffer. The number
+	 * of voters and their fingerprint are written to the header when the
+	 * writer is finished, so a file whose writing fails part way, and is
+	 * closed without being finished, is never read as a complete electorate.
+	 */
+	public static class Writer implements Closeable
+	{
+		/** The number of bytes of voters buffered before being written */
+		private static final int BUFFER_SIZE = 1 << 16;
+
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		private long noVoters;
+		private long fingerprint;
+		private boolean finished;
+
+		private Writer(Path path, Party[] parties, long seed) throws IOException
+		{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream header = new DataOutputStream(bytes);
+			header.writeInt(MAGIC);
+			header.writeInt(VERSION);
+			header.writeLong(seed);
+			header.writeLong(INCOMPLETE);
+			header.writeLong(0);
+			header.writeInt(parties.length);
+			for(Party p : parties)
+			{
+				byte[] name = p.getName().getBytes(StandardCharsets.UTF_8);
+				if(name.length > 0xFFFF)
+					throw new IllegalArgumentException("The name of party " + p.getName() + " is too long");
+
+				header.writeShort(name.length);
+				header.write(name);
+				header.writeByte(p.getSocialPolicy());
+				header.writeByte(p.getEconomicPolicy());
+				header.writeByte(p.getCompetence());
+			}
+
+			channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+			writeFully(ByteBuffer.wrap(bytes.toByteArray()));
+		}
+
+		/**
+		 * Adds a voter to the file.
+		 * @param v the voter to be added.
+		 * @throws IOException if the file cannot be written.
+		 */
+		public void add(Voter v) throws IOException
+		{
+			addProfile(VoterProfile.of(v));
+		}
+
+		/**
+		 * Adds a voter with the given preferences and ratios to the file.
+		 * @param socPref the voter's social preference.
+		 * @param econPref the voter's economic preference.
+		 * @param prefRatio the voter's preference ratio.
+		 * @param compRatio the voter's competence ratio.
+		 * @throws IOException if the file cannot be written.
+		 * @throws IllegalArgumentException if any of the values are out of range.
+		 */
+		public void add(int socPref, int econPref, int prefRatio, int compRatio) throws IOException, IllegalArgumentException
+		{
+			//ensure everything is in range or throw an exception
+			if(socPref   < 0 || socPref   > 100)
+				throw new IllegalArgumentException("The social preference is out of range");
+			if(econPref  < 0 || econPref  > 100)
+				throw new IllegalArgumentException("The economic preference is out of range");
+			if(prefRatio < 0 || prefRatio > 100)
+				throw new IllegalArgumentException("The preference ratio is out of range");
+			if(compRatio < 0 || compRatio > 100)
+				throw new IllegalArgumentException("The competence ratio is out of range");
+
+			addProfile(VoterProfile.pack(socPref, econPref, prefRatio, compRatio));
+		}
+
+		/**
+		 * Adds all the voters in a table to the file.
+		 * @param voters the table whose voters are to be added.
+		 * @throws IOException if the file cannot be written.
+		 */
+		public void addAll(VoterTable voters) throws IOException
+		{
+			for(int i=0; i<voters.size(); i++)
+				addProfile(voters.getProfile(i));
+		}
+
+		/**
+		 * Adds a voter with a packed profile to the file. The profile's
+		 * values are not range checked.
+		 */
+		void addProfile(int profile) throws IOException
+		{
+			if(finished)
+				throw new IllegalStateException("The electorate file is already finished");
+			if(noVoters == Integer.MAX_VALUE)
+				throw new IllegalStateException("An electorate file holds at most " + Integer.MAX_VALUE + " voters");
+
+			if(!buffer.hasRemaining())
+				flush();
+
+			buffer.put((byte) VoterProfile.socialPreference(profile));
+			buffer.put((byte) VoterProfile.economicPreference(profile));
+			buffer.put((byte) VoterProfile.preferenceRatio(profile));
+			buffer.put((byte) VoterProfile.competenceRatio(profile));
+
+			fingerprint = Long.rotateLeft(fingerprint, 23) * 0x9E3779B97F4A7C15L + profile;
+			noVoters++;
+		}
+
+		/**
+		 * Writes the buffered voters to the file.
+		 */
+		private void flush() throws IOException
+		{
+			buffer.flip();
+			writeFully(buffer);
+			buffer.clear();
+		}
+
+		private void writeFully(ByteBuffer b) throws IOException
+		{
+			while(b.hasRemaining())
+				channel.write(b);
+		}
+
+		/**
+		 * Writes the remaining voters and completes the header. No voters can
+		 * be added afterwards.
+		 * @throws IOException if the file cannot be written.
+		 */
+		public void finish() throws IOException
+		{
+			if(finished)
+				return;
+
+			flush();
+
+			ByteBuffer counts = ByteBuffer.allocate(16);
+			counts.putLong(noVoters).putLong(Seeds.mix(fingerprint, noVoters)).flip();
+			while(counts.hasRemaining())
+				channel.write(counts, NO_VOTERS_OFFSET + counts.position());
+
+			finished = true;
+		}
+
+		/**
+		 * Closes the file. Unless the writer was finished first, the file is
+		 * left incomplete.
+		 * @throws IOException if the file cannot be closed.
+		 */
+		@Override
+		public void close() throws IOException
+		{
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,49 @@
+import java.util.SplittableRandom;
+
+/**
+ * Counts the ballots of a memory mapped electorate file in fixed size chunks
+ * of voters, ranking every voter individually as it is read from the mapping.
+ */
+class ElectorateFileCounter implements ChunkCounter
+{
+	/** The number of voters in each chunk */
+	static final int CHUNK_SIZE = VoterTableCounter.CHUNK_SIZE;
+
+	private final ElectorateFile file;
+	private final Party[] parties;
+	private final long seed;
+
+	/**
+	 * Constructs a counter for the given file and parties.
+	 * @param file the file whose ballots are counted.
+	 * @param parties the parties being ranked.
+	 * @param seed the seed from which each chunk's random number generator is derived.
+	 */
+	ElectorateFileCounter(ElectorateFile file, Party[] parties, long seed)
+	{
+		this.file = file;
+		this.parties = parties;
+		this.seed = seed;
+	}
+
+	@Override
+	public int noChunks()
+	{
+		return (int) (((long) file.size() + CHUNK_SIZE - 1) / CHUNK_SIZE);
+	}
+
+	@Override
+	public void count(int chunk, BallotSink sink)
+	{
+		BallotRanker ranker = new BallotRanker(parties, new SplittableRandom(Seeds.mix(seed, chunk)));
+
+		int from = chunk * CHUNK_SIZE;
+		int to = (int) Math.min((long) from + CHUNK_SIZE, file.size());
+		for(int i=from; i<to; i++)
+		{
+			int profile = file.getProfile(i);
+			sink.addBallot(ranker.rank(VoterProfile.socialPreference(profile), VoterProfile.economicPreference(profile),
+			                           VoterProfile.preferenceRatio(profile), VoterProfile.competenceRatio(profile)), 1);
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/**
+ * A snapshot of statistics about the voters of an election: the mean,
+ * variance and histogram of each preference, and the average distance to
+ * each party. All the statistics are computed together in a single pass over
+ * a {@link PreferenceGrid}, so they cost time proportional to the size of the
+ * grid times the number of parties, whatever the number of voters.
+ * Distances to parties the snapshot was not computed for are measured from
+ * the grid when asked for.
+ */
+public class ElectorateStats
+{
+	/** The voters, kept to measure distances to other parties */
+	private final PreferenceGrid grid;
+	/** The parties the distances were computed for */
+	private final Party[] parties;
+
+	private final long noVoters;
+	//The mean and variance of each preference
+	private final double avgSocialPreference;
+	private final double avgEconomicPreference;
+	private final double socialVariance;
+	private final double economicVariance;
+	//The number of voters with each value of each preference
+	private final long[] socialHistogram;
+	private final long[] economicHistogram;
+	/** The average distance to each party, in the order of the parties */
+	private final double[] avgDistances;
+
+	/**
+	 * Computes the statistics of the voters in a grid. The grid must not
+	 * change afterwards.
+	 * @param grid the voters.
+	 * @param parties the parties the distances are computed for.
+	 */
+	ElectorateStats(PreferenceGrid grid, Party[] parties)
+	{
+		this.grid = grid;
+		this.parties = parties.clone();
+
+		int[] socPols = new int[parties.length];
+		int[] econPols = new int[parties.length];
+		for(int i=0; i<parties.length; i++)
+		{
+			socPols[i] = parties[i].getSocialPolicy();
+			econPols[i] = parties[i].getEconomicPolicy();
+		}
+
+		long[] counts = grid.counts();
+		socialHistogram = new long[PreferenceGrid.VALUES];
+		economicHistogram = new long[PreferenceGrid.VALUES];
+		double[] sumDistances = new double[parties.length];
+		for(int soc=0; soc<PreferenceGrid.VALUES; soc++)
+		{
+			int row = soc * PreferenceGrid.VALUES;
+			for(int econ=0; econ<PreferenceGrid.VALUES; econ++)
+			{
+				long count = counts[row + econ];
+				if(count == 0)
+					continue;
+
+				socialHistogram[soc] += count;
+				economicHistogram[econ] += count;
+				for(int i=0; i<parties.length; i++)
+				{
+					int socDis = soc - socPols[i];
+					int econDis = econ - econPols[i];
+					sumDistances[i] += count * PreferenceGrid.distance(socDis*socDis + econDis*econDis);
+				}
+			}
+		}
+
+		//the moments follow from the histograms, which have only 101 values
+		long sumSoc = 0, sumSocSq = 0;
+		long sumEcon = 0, sumEconSq = 0;
+		for(int v=0; v<PreferenceGrid.VALUES; v++)
+		{
+			sumSoc += socialHistogram[v] * v;
+			sumSocSq += socialHistogram[v] * v * v;
+			sumEcon += economicHistogram[v] * v;
+			sumEconSq += economicHistogram[v] * v * v;
+		}
+
+		noVoters = grid.size();
+		avgSocialPreference = sumSoc / (double) noVoters;
+		avgEconomicPreference = sumEcon / (double) noVoters;
+		socialVariance = sumSocSq / (double) noVoters - avgSocialPreference * avgSocialPreference;
+		economicVariance = sumEconSq / (double) noVoters - avgEconomicPreference * avgEconomicPreference;
+
+		avgDistances = new double[parties.length];
+		for(int i=0; i<parties.length; i++)
+			avgDistances[i] = sumDistances[i] / noVoters;
+	}
+
+	/**
+	 * Returns the number of voters.
+	 * @return the number of voters.
+	 */
+	public long noVoters()
+	{
+		return noVoters;
+	}
+
+	/**
+	 * Returns the average social preference of the voters.
+	 * @return the average social preference of the voters.
+	 */
+	public double avgSocialPreference()
+	{
+		return avgSocialPreference;
+	}
+
+	/**
+	 * Returns the average economic preference of the voters.
+	 * @return the average economic preference of the voters.
+	 */
+	public double avgEconomicPreference()
+	{
+		return avgEconomicPreference;
+	}
+
+	/**
+	 * Returns the variance of the social preferences of the voters.
+	 * @return the variance of the social preferences of the voters.
+	 */
+	public double socialPreferenceVariance()
+	{
+		return socialVariance;
+	}
+
+	/**
+	 * Returns the variance of the economic preferences of the voters.
+	 * @return the variance of the economic preferences of the voters.
+	 */
+	public double economicPreferenceVariance()
+	{
+		return economicVariance;
+	}
+
+	/**
+	 * Returns the number of voters with each social preference.
+	 * @return an array of 101 counts, indexed by social preference.
+	 */
+	public long[] socialPreferenceHistogram()
+	{
+		return socialHistogram.clone();
+	}
+
+	/**
+	 * Returns the number of voters with each economic preference.
+	 * @return an array of 101 counts, indexed by economic preference.
+	 */
+	public long[] economicPreferenceHistogram()
+	{
+		return economicHistogram.clone();
+	}
+
+	/**
+	 * Returns the average euclidian preference distance of the voters to a
+	 * party. Distances to the parties the snapshot was computed for are read
+	 * from it, and distances to any other party are measured from the grid.
+	 * @param p the party from which the average distance is calculated.
+	 * @return the average distance of the voters to the party.
+	 */
+	public double avgDistanceFromParty(Party p)
+	{
+		for(int i=0; i<parties.length; i++)
+			if(parties[i] == p) return avgDistances[i];
+
+		return grid.sumDistanceFromParty(p) / noVoters;
+	}
+
+	/**
+	 * Returns the average distance of the voters to each party the snapshot
+	 * was computed for.
+	 * @return the parties and their average distances, in no particular order.
+	 */
+	public PartyWithDoubleValue[] avgDistancesFromParties()
+	{
+		PartyWithDoubleValue[] distances = new PartyWithDoubleValue[parties.length];
+		for(int i=0; i<parties.length; i++)
+			distances[i] = new PartyWithDoubleValue(parties[i], avgDistances[i]);
+
+		return distances;
+	}
+}
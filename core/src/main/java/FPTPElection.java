@@ -0,0 +1,570 @@
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A first past the post election. The country is divided into districts,
+ * each with its own voters, and the party with the most first choice votes
+ * in a district wins all of that district's seats.
+ *
+ * Voters take part only through their district, so they must be added with
+ * {@link #addDistrict} or {@link #addRandomDistricts} rather than
+ * {@link #addVoters}. A random district stores only the distribution its
+ * voters are drawn from, and its voters are generated as they are counted,
+ * so the memory used grows with the number of districts and not with the
+ * number of voters. Districts are counted in parallel, each with tie-breaking
+ * derived from the election's seed and its own index, so the results do not
+ * depend on the parallelism.
+ */
+public class FPTPElection extends Election
+{
+	/** The number of voters below which a range of districts is counted by a single task */
+	private static final int VOTERS_PER_TASK = 1 << 16;
+
+	/** The districts, in the order they were added */
+	private final List<District> districts = new ArrayList<>();
+	/** The total number of seats of all the districts */
+	private int totalSeats;
+	/** The total number of voters of all the districts */
+	private int districtVoters;
+
+	/** The parties, indexed by their ids, as counted by the last run */
+	private Party[] partyArray;
+	/** The first choice votes in each district, indexed by district * noParties + party id */
+	private int[] districtVotes;
+	/** The id of the party that won each district */
+	private int[] winners;
+	/** The number of seats won by each party, indexed by party id */
+	private int[] partySeats;
+	/** The voters of every district, gathered while counting */
+	private PreferenceGrid grid = new PreferenceGrid();
+
+	private ImmutableList<PartyWithVotes> results;
+	private ImmutableList<PartyWithDoubleValue> seatResults;
+
+	/**
+	 * Adds a district holding the given voters. The electorate is shared
+	 * rather than copied, so it must not change until the election has been run.
+	 * @param voters the voters of the district.
+	 * @param seats the number of seats the district's winner gets.
+	 * @return the index of the new district.
+	 * @throws IllegalArgumentException if the number of seats is less than 1.
+	 */
+	public int addDistrict(Electorate voters, int seats) throws IllegalArgumentException
+	{
+		return add(new ElectorateDistrict(voters, seats));
+	}
+
+	/**
+	 * Adds a district whose voters are drawn from the same distribution as
+	 * {@link VoterFactory}'s, with its mean preferences shifted. The voters
+	 * are generated each time the election is run, and a district with no
+	 * shift holds the same voters as
+	 * {@link VoterFactory#generateElectorate(int, long, int, GaussianSampler)}
+	 * with the same seed and the ziggurat sampler.
+	 * @param noVoters the number of voters in the district.
+	 * @param socShift the amount added to the district's mean social preference.
+	 * @param econShift the amount added to the district's mean economic preference.
+	 * @param seed the seed the district's voters are generated from.
+	 * @param seats the number of seats the district's winner gets.
+	 * @return the index of the new district.
+	 * @throws IllegalArgumentException if the number of voters is negative or
+	 * the number of seats is less than 1.
+	 */
+	public int addRandomDistrict(int noVoters, double socShift, double econShift, long seed, int seats) throws IllegalArgumentException
+	{
+		if(noVoters < 0)
+			throw new IllegalArgumentException("Negative number of voters: " + noVoters);
+
+		return add(new RandomDistrict(noVoters, socShift, econShift, seed, seats));
+	}
+
+	/**
+	 * Adds a number of random districts of one seat each. Each district's
+	 * shift in mean preferences is drawn from a normal distribution, so the
+	 * districts lean in different directions. The voters are split as evenly
+	 * as possible, the first districts holding one voter more than the rest
+	 * when they do not divide evenly.
+	 * @param noDistricts the number of districts to add.
+	 * @param noVoters the number of voters in all the districts together.
+	 * @param spread the standard deviation of the districts' shifts.
+	 * @param seed the seed the districts' shifts and voters are derived from.
+	 * @throws IllegalArgumentException if the number of districts is less
+	 * than 1 or the number of voters is negative.
+	 */
+	public void addRandomDistricts(int noDistricts, int noVoters, double spread, long seed) throws IllegalArgumentException
+	{
+		if(noDistricts < 1)
+			throw new IllegalArgumentException("Invalid number of districts: " + noDistricts);
+		if(noVoters < 0)
+			throw new IllegalArgumentException("Negative number of voters: " + noVoters);
+
+		int votersPerDistrict = noVoters / noDistricts;
+		int remainder = noVoters % noDistricts;
+
+		SplittableRandom randGen = new SplittableRandom(seed);
+		for(int i=0; i<noDistricts; i++)
+		{
+			double socShift = spread * GaussianSampler.POLAR.next(randGen);
+			double econShift = spread * GaussianSampler.POLAR.next(randGen);
+			addRandomDistrict(votersPerDistrict + (i < remainder ? 1 : 0), socShift, econShift, Seeds.mix(seed, i), 1);
+		}
+	}
+
+	/**
+	 * Adds a district, keeping count of the seats and voters.
+	 */
+	private int add(District district)
+	{
+		totalSeats = Math.addExact(totalSeats, district.seats);
+		districtVoters = Math.addExact(districtVoters, district.noVoters());
+		districts.add(district);
+
+		//the voters are only known again after the next run
+		if(grid.size() > 0)
+			grid = new PreferenceGrid();
+		votersChanged();
+
+		return districts.size() - 1;
+	}
+
+	/**
+	 * Returns the number of districts.
+	 * @return the number of districts.
+	 */
+	public int noDistricts()
+	{
+		return districts.size();
+	}
+
+	/**
+	 * Returns the total number of seats of all the districts.
+	 * @return the total number of seats.
+	 */
+	public int noSeats()
+	{
+		return totalSeats;
+	}
+
+	/**
+	 * Counts every district and assigns its seats to its winner.
+	 * @throws IllegalStateException if there are no districts, or voters were
+	 * added outside of the districts.
+	 */
+	@Override
+	public void run() throws IllegalStateException
+	{
+		if(districts.isEmpty())
+			throw new IllegalStateException("An election needs at least one district");
+		if(super.noVoters() > 0)
+			throw new IllegalStateException("Voters must be added to a district");
+
+		int n = noParties();
+		partyArray = partyArray();
+
+		districtVotes = new int[districts.size() * n];
+		winners = new int[districts.size()];
+
+		//electorates sort themselves on first use, so do it before counting them concurrently
+		for(District d : districts)
+			d.prepare();
+
+		DistrictTask task = new DistrictTask(0, districts.size());
+		DistrictCount total = getParallelism() == 1 ? task.compute() : TallyTask.invoke(task, getParallelism());
+
+		results = total.tally.results(partyArray);
+		grid = total.grid;
+		votersChanged();
+
+		//give each district's seats to its winner
+		partySeats = new int[n];
+		for(int d=0; d<districts.size(); d++)
+		{
+			winners[d] = findWinner(d);
+			partySeats[winners[d]] += districts.get(d).seats;
+		}
+
+		List<PartyWithDoubleValue> seats = new ArrayList<>(n);
+		for(int id=0; id<n; id++)
+			seats.add(new PartyWithDoubleValue(partyArray[id], 100.0 * partySeats[id] / totalSeats));
+		Collections.sort(seats, Collections.reverseOrder());
+		seatResults = ImmutableList.copyOf(seats);
+
+		isComplete = true;
+	}
+
+	/**
+	 * Finds the party with the most first choice votes in a district. Ties
+	 * are broken at random, from the election's seed and the district's index.
+	 */
+	private int findWinner(int district)
+	{
+		int n = partyArray.length;
+		int offset = district * n;
+
+		int winner = 0;
+		int noTied = 1;
+		SplittableRandom randGen = null;
+		for(int id=1; id<n; id++)
+		{
+			int votes = districtVotes[offset + id];
+			int best = districtVotes[offset + winner];
+			if(votes > best)
+			{
+				winner = id;
+				noTied = 1;
+			}
+			else if(votes == best)
+			{
+				//keep each tied party with equal probability
+				if(randGen == null)
+					randGen = new SplittableRandom(Seeds.mix(~getSeed(), district));
+				if(randGen.nextInt(++noTied) == 0)
+					winner = id;
+			}
+		}
+
+		return winner;
+	}
+
+	/**
+	 * Returns the national results of this election, summed over all the districts.
+	 * @return A list of parties with votes sorted in descending order.
+	 * @throws IncompleteElectionException if the election is not complete.
+	 */
+	@Override
+	public ImmutableList<PartyWithVotes> results() throws IncompleteElectionException
+	{
+		if(!isComplete)
+			throw new IncompleteElectionException();
+
+		return results;
+	}
+
+	@Override
+	public ImmutableList<PartyWithDoubleValue> seatResults() throws IncompleteElectionException
+	{
+		if(!isComplete)
+			throw new IncompleteElectionException();
+
+		return seatResults;
+	}
+
+	/**
+	 * Returns the party that won a district.
+	 * @param district the index of the district.
+	 * @return the party that won the district.
+	 * @throws IncompleteElectionException if the election is not complete.
+	 * @throws IndexOutOfBoundsException if there is no such district.
+	 */
+	public Party districtWinner(int district) throws IncompleteElectionException, IndexOutOfBoundsException
+	{
+		if(!isComplete)
+			throw new IncompleteElectionException();
+
+		return partyArray[winners[district]];
+	}
+
+	/**
+	 * Returns the number of first choice votes for a party in a district.
+	 * @param district the index of the district.
+	 * @param p the party.
+	 * @return the number of first choice votes for the party in the district.
+	 * @throws IncompleteElectionException if the election is not complete.
+	 * @throws IndexOutOfBoundsException if there is no such district.
+	 */
+	public int districtVotes(int district, Party p) throws IncompleteElectionException, IndexOutOfBoundsException
+	{
+		if(!isComplete)
+			throw new IncompleteElectionException();
+		if(district < 0 || district >= districts.size())
+			throw new IndexOutOfBoundsException("No district " + district);
+
+		return districtVotes[district * partyArray.length + partyId(p)];
+	}
+
+	/**
+	 * Returns the number of seats a party won.
+	 * @param p the party.
+	 * @return the number of seats the party won.
+	 * @throws IncompleteElectionException if the election is not complete.
+	 */
+	public int partySeats(Party p) throws IncompleteElectionException
+	{
+		if(!isComplete)
+			throw new IncompleteElectionException();
+
+		return partySeats[partyId(p)];
+	}
+
+	/**
+	 * Returns the number of voters in all the districts.
+	 * @return the number of voters in all the districts.
+	 */
+	@Override
+	public int noVoters()
+	{
+		return districtVoters;
+	}
+
+	/**
+	 * Returns an index of the voters of every district by their preferences.
+	 * The voters of random districts are only generated when the election is
+	 * run, so until then the index holds none of them.
+	 * @return an index of the voters by their preferences.
+	 */
+	@Override
+	public PreferenceGrid preferenceGrid()
+	{
+		return grid;
+	}
+
+	@Override
+	protected void writeResults(Appendable out) throws IOException
+	{
+		out.append("First Past The Post Election Results\n")
+		   .append("====================================\n");
+
+		out.append("     Party     | Seats | Won   | Votes\n")
+		   .append("---------------+-------+-------+------\n");
+
+		for(PartyWithDoubleValue p : seatResults)
+			format(out, "%-15s| %-5.2f | %-5d | %-5.2f%n", p.getParty().getName(), p.getValue(),
+			       partySeats(p.getParty()), percentageVotesForParty(p.getParty(), 1));
+
+		out.append('\n');
+	}
+
+	/**
+	 * A district: a group of voters electing a number of seats.
+	 */
+	private abstract static class District
+	{
+		/** The number of seats the district's winner gets */
+		final int seats;
+
+		District(int seats) throws IllegalArgumentException
+		{
+			if(seats < 1)
+				throw new IllegalArgumentException("Invalid number of seats: " + seats);
+
+			this.seats = seats;
+		}
+
+		/**
+		 * Returns the number of voters in the district.
+		 */
+		abstract int noVoters();
+
+		/**
+		 * Gets the district ready to be counted concurrently with other districts.
+		 */
+		void prepare()
+		{
+		}
+
+		/**
+		 * Ranks the parties for every voter in the district, adding their
+		 * ballots to a sink and their preferences to a grid.
+		 */
+		abstract void count(BallotRanker ranker, BallotSink sink, PreferenceGrid grid);
+	}
+
+	/**
+	 * A district whose voters are held in an electorate.
+	 */
+	private static class ElectorateDistrict extends District
+	{
+		private final Electorate voters;
+
+		ElectorateDistrict(Electorate voters, int seats)
+		{
+			super(seats);
+			this.voters = voters;
+		}
+
+		@Override
+		int noVoters()
+		{
+			return voters.size();
+		}
+
+		@Override
+		void prepare()
+		{
+			voters.sortedProfiles();
+		}
+
+		@Override
+		void count(BallotRanker ranker, BallotSink sink, PreferenceGrid grid)
+		{
+			int[] profiles = voters.sortedProfiles();
+			int[] weights = voters.sortedCounts();
+			for(int i=0; i<profiles.length; i++)
+			{
+				int profile = profiles[i];
+				int socPref = VoterProfile.socialPreference(profile);
+				int econPref = VoterProfile.economicPreference(profile);
+				ranker.count(sink, socPref, econPref, VoterProfile.preferenceRatio(profile),
+				             VoterProfile.competenceRatio(profile), weights[i]);
+				grid.add(socPref, econPref, weights[i]);
+			}
+		}
+	}
+
+	/**
+	 * A district whose voters are generated as they are counted, in chunks
+	 * of {@value VoterFactory#CHUNK_SIZE} each drawn from its own random
+	 * number generator, as {@link VoterFactory} generates them.
+	 */
+	private static class RandomDistrict extends District
+	{
+		private final int noVoters;
+		private final double socShift;
+		private final double econShift;
+		private final long seed;
+
+		RandomDistrict(int noVoters, double socShift, double econShift, long seed, int seats)
+		{
+			super(seats);
+			this.noVoters = noVoters;
+			this.socShift = socShift;
+			this.econShift = econShift;
+			this.seed = seed;
+		}
+
+		@Override
+		int noVoters()
+		{
+			return noVoters;
+		}
+
+		@Override
+		void count(BallotRanker ranker, BallotSink sink, PreferenceGrid grid)
+		{
+			int noChunks = (noVoters + VoterFactory.CHUNK_SIZE - 1) / VoterFactory.CHUNK_SIZE;
+			for(int chunk=0; chunk<noChunks; chunk++)
+			{
+				SplittableRandom randGen = new SplittableRandom(Seeds.mix(seed, chunk));
+
+				int size = Math.min(VoterFactory.CHUNK_SIZE, noVoters - chunk * VoterFactory.CHUNK_SIZE);
+				for(int i=0; i<size; i++)
+				{
+					int profile = VoterFactory.randomProfile(randGen, GaussianSampler.ZIGGURAT, socShift, econShift);
+					int socPref = VoterProfile.socialPreference(profile);
+					int econPref = VoterProfile.economicPreference(profile);
+					ranker.count(sink, socPref, econPref, VoterProfile.preferenceRatio(profile),
+					             VoterProfile.competenceRatio(profile), 1);
+					grid.add(socPref, econPref, 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The national tally and the voters of a range of districts.
+	 */
+	private static class DistrictCount
+	{
+		final Tally tally;
+		final PreferenceGrid grid = new PreferenceGrid();
+
+		DistrictCount(int noParties)
+		{
+			tally = new Tally(noParties);
+		}
+
+		void merge(DistrictCount other)
+		{
+			tally.merge(other.tally);
+			grid.addAll(other.grid);
+		}
+	}
+
+	/**
+	 * Adds ballots to the national tally and their first choices to the
+	 * votes of the district being counted.
+	 */
+	private class DistrictSink implements BallotSink
+	{
+		private final Tally tally;
+		/** The offset of the district's votes in districtVotes */
+		private int offset;
+
+		DistrictSink(Tally tally)
+		{
+			this.tally = tally;
+		}
+
+		@Override
+		public void addBallot(int[] ranking, int weight)
+		{
+			tally.addBallot(ranking, weight);
+			districtVotes[offset + ranking[0]] += weight;
+		}
+	}
+
+	/**
+	 * Counts a range of districts, splitting it in half until it holds a
+	 * single district or fewer than {@value #VOTERS_PER_TASK} voters. Each
+	 * district writes only its own votes, and the national tallies are sums,
+	 * so the results do not depend on how the districts were scheduled.
+	 */
+	private class DistrictTask extends RecursiveTask<DistrictCount>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+
+		DistrictTask(int from, int to)
+		{
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected DistrictCount compute()
+		{
+			int voters = 0;
+			for(int d=from; d<to && voters<VOTERS_PER_TASK; d++)
+				voters += districts.get(d).noVoters();
+
+			if(to - from <= 1 || voters < VOTERS_PER_TASK || getParallelism() == 1)
+				return countDistricts();
+
+			int middle = (from + to) >>> 1;
+			DistrictTask left = new DistrictTask(from, middle);
+			DistrictTask right = new DistrictTask(middle, to);
+
+			left.fork();
+			DistrictCount count = right.compute();
+			DistrictCount leftCount = left.join();
+			leftCount.merge(count);
+
+			return leftCount;
+		}
+
+		/**
+		 * Counts every district in the range on the calling thread.
+		 */
+		private DistrictCount countDistricts()
+		{
+			int n = partyArray.length;
+			DistrictCount count = new DistrictCount(n);
+			DistrictSink sink = new DistrictSink(count.tally);
+			for(int d=from; d<to; d++)
+			{
+				BallotRanker ranker = new BallotRanker(partyArray, new SplittableRandom(Seeds.mix(getSeed(), d)));
+				sink.offset = d * n;
+				districts.get(d).count(ranker, sink, count.grid);
+			}
+
+			return count;
+		}
+	}
+}
@@ -0,0 +1,119 @@
+
+import java.util.SplittableRandom;
+
+/**
+ * Methods of sampling the standard normal distribution.
+ */
+public enum GaussianSampler
+{
+	/**
+	 * Marsaglia's polar method, as used by java.util.Random.nextGaussian.
+	 * Needs a logarithm and a square root for every pair of values, and
+	 * rejects about a fifth of its candidate points.
+	 */
+	POLAR
+	{
+		@Override
+		public double next(SplittableRandom randGen)
+		{
+			double v1, v2, s;
+			do
+			{
+				v1 = 2 * randGen.nextDouble() - 1;
+				v2 = 2 * randGen.nextDouble() - 1;
+				s = v1 * v1 + v2 * v2;
+			}
+			while(s >= 1 || s == 0);
+
+			return v1 * StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+		}
+	},
+
+	/**
+	 * Marsaglia and Tsang's ziggurat method with 128 layers. About 99% of
+	 * values take a single random long, a table lookup and a multiplication.
+	 * The layer is taken from the low bits of the long and the value from the
+	 * high bits, so the two are independent.
+	 */
+	ZIGGURAT
+	{
+		@Override
+		public double next(SplittableRandom randGen)
+		{
+			while(true)
+			{
+				long bits = randGen.nextLong();
+				int layer = (int) bits & (ZIGGURAT_LAYERS - 1);
+				int hz = (int) (bits >> 32);
+
+				//the common case: the point lies inside the layer's rectangle
+				if(Math.abs((long) hz) < zigguratK[layer])
+					return hz * zigguratW[layer];
+
+				double x = hz * zigguratW[layer];
+				if(layer == 0)
+				{
+					//sample from the tail beyond the base layer
+					double y;
+					do
+					{
+						x = -Math.log(1 - randGen.nextDouble()) / ZIGGURAT_R;
+						y = -Math.log(1 - randGen.nextDouble());
+					}
+					while(y + y < x * x);
+
+					return hz > 0 ? ZIGGURAT_R + x : -ZIGGURAT_R - x;
+				}
+
+				//the point lies in the wedge between the rectangle and the curve
+				double f = zigguratF[layer] + randGen.nextDouble() * (zigguratF[layer-1] - zigguratF[layer]);
+				if(f < Math.exp(-0.5 * x * x))
+					return x;
+			}
+		}
+	};
+
+	/** The number of layers in the ziggurat */
+	private static final int ZIGGURAT_LAYERS = 128;
+	/** The start of the tail, the right hand edge of the base layer */
+	private static final double ZIGGURAT_R = 3.442619855899;
+	/** The area of each layer */
+	private static final double ZIGGURAT_V = 9.91256303526217e-3;
+
+	//The ziggurat tables: the rectangle test threshold, the scale from a
+	//random int to a value, and the density at the edge of each layer
+	private static final long[] zigguratK = new long[ZIGGURAT_LAYERS];
+	private static final double[] zigguratW = new double[ZIGGURAT_LAYERS];
+	private static final double[] zigguratF = new double[ZIGGURAT_LAYERS];
+
+	static
+	{
+		double m = 1L << 31;
+		double dn = ZIGGURAT_R;
+		double tn = dn;
+		double q = ZIGGURAT_V / Math.exp(-0.5 * dn * dn);
+
+		zigguratK[0] = (long) (dn / q * m);
+		zigguratK[1] = 0;
+		zigguratW[0] = q / m;
+		zigguratW[ZIGGURAT_LAYERS-1] = dn / m;
+		zigguratF[0] = 1;
+		zigguratF[ZIGGURAT_LAYERS-1] = Math.exp(-0.5 * dn * dn);
+
+		for(int i=ZIGGURAT_LAYERS-2; i>=1; i--)
+		{
+			dn = Math.sqrt(-2 * Math.log(ZIGGURAT_V / dn + Math.exp(-0.5 * dn * dn)));
+			zigguratK[i+1] = (long) (dn / tn * m);
+			tn = dn;
+			zigguratF[i] = Math.exp(-0.5 * dn * dn);
+			zigguratW[i] = dn / m;
+		}
+	}
+
+	/**
+	 * Samples a value from the standard normal distribution.
+	 * @param randGen the random number generator to draw from.
+	 * @return a normally distributed value with mean 0 and standard deviation 1.
+	 */
+	public abstract double next(SplittableRandom randGen);
+}
@@ -1,5 +1,6 @@
 
 import com.google.common.collect.ImmutableList;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -71,26 +72,23 @@ public class MajoritarianElection extends Election
 	}
 
 	@Override
-	public String toString()
+	protected void writeResults(Appendable out) throws IOException
 	{
-		if(!isComplete())
-			return "This election isn't complete.";
+		out.append("Majoritarian Election Results\n")
+		   .append("=============================\n");
 
-		String buffer = "Majoritarian Election Results\n"
-				      + "=============================\n";
-
-		buffer += "     Party     | Seats | Votes\n"
-				+ "---------------+-------+------\n";
+		out.append("     Party     | Seats | Votes\n")
+		   .append("---------------+-------+------\n");
 
 		for(PartyWithDoubleValue p : seatResults)
-			buffer += String.format("%-15s| %-5.2f | %-5.2f%n", p.getParty().getName(), p.getValue(),percentageVotesForParty(p.getParty(), 1));
-
-		buffer += "\n";
-		buffer += voterStats();
+			format(out, "%-15s| %-5.2f | %-5.2f%n", p.getParty().getName(), p.getValue(), percentageVotesForParty(p.getParty(), 1));
 
-		Party winningParty = results().get(0).getParty();
-		buffer += "Average distance from winning party: " + avgDistanceFromParty(winningParty) + "\n";
+		out.append('\n');
+	}
 
-		return buffer;
+	@Override
+	public ImmutableList<PartyWithDoubleValue> seatResults()
+	{
+		return ImmutableList.<PartyWithDoubleValue>builder().addAll(seatResults).build();
 	}
 }
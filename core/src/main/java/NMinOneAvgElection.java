@@ -0,0 +1,155 @@
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+public class NMinOneAvgElection extends Election
+{
+	/** The results of each round, in order */
+	private List<ImmutableList<PartyWithVotes>> roundResults;
+	private List<PartyWithDoubleValue> seatResults;
+
+	@Override
+	public void run()
+	{
+		Party[] partyArray = partyArray();
+
+		//rank every voter once. Each round recounts the same ballots over the
+		//parties still standing, so a voter whose choice is eliminated moves
+		//on to their next surviving choice.
+		BallotBox ballots = countBallots(partyArray);
+
+		//the indices of the parties still standing
+		int[] standing = new int[partyArray.length];
+		for(int i=0; i<standing.length; i++)
+			standing[i] = i;
+
+		roundResults = new ArrayList<>(noParties()-1);
+
+		int curRound = 0;
+
+		while(curRound < noParties()-1)
+		{
+			Party[] roundParties = new Party[standing.length];
+			for(int i=0; i<standing.length; i++)
+				roundParties[i] = partyArray[standing[i]];
+
+			ImmutableList<PartyWithVotes> results = ballots.tally(standing).results(roundParties);
+			roundResults.add(results);
+
+			//find the lowest scoring party and remove it
+			Party loser = results.get(results.size()-1).getParty();
+			int[] remaining = new int[standing.length-1];
+			for(int i=0, j=0; i<standing.length; i++)
+				if(roundParties[i] != loser) remaining[j++] = standing[i];
+			standing = remaining;
+
+			//increment the current round and repeat
+			curRound++;
+		}
+
+		//sum each party's first choice votes over the rounds it took part in
+		int[] sumOfVotes = new int[noParties()];
+		for(List<PartyWithVotes> results : roundResults)
+			for(PartyWithVotes p : results)
+				sumOfVotes[partyId(p.getParty())] += p.getVotes(1);
+
+		seatResults = new ArrayList<>(noParties());
+		//calculate the seats for each party
+		for(int id=0; id<noParties(); id++)
+		{
+			double percentageVotes = 100.0 * sumOfVotes[id] / roundResults.size() / noVoters();
+
+			seatResults.add(new PartyWithDoubleValue(getParty(id), percentageVotes));
+		}
+
+		//sort the seat results into descending order
+		Collections.sort(seatResults, Collections.reverseOrder());
+
+		isComplete = true;
+	}
+
+	/**
+	 * Returns the results of the last round of this election.
+	 * @return A list of parties with votes sorted in descending order.
+	 * @throws IncompleteElectionException if the election is not complete.
+	 */
+	@Override
+	public ImmutableList<PartyWithVotes> results() throws IncompleteElectionException
+	{
+		if(!isComplete)
+			throw new IncompleteElectionException();
+
+		return roundResults.get(roundResults.size()-1);
+	}
+
+	/**
+	 * Returns the results of the first round of this election.
+	 * @return A list of parties with votes sorted in descending order.
+	 * @throws IncompleteElectionException if the election is not complete.
+	 */
+	@Override
+	public ImmutableList<PartyWithVotes> firstRoundResults() throws IncompleteElectionException
+	{
+		return results(1);
+	}
+
+	/**
+	 * Returns the results of a chosen round of this election.
+	 * @param round the round of the election that results will be returned for.
+	 * @return A list of parties with votes sorted in descending order.
+	 * @throws IncompleteElectionException if the election is not complete.
+	 * @throws IllegalArgumentException if the round provided does not exist.
+	 */
+	public ImmutableList<PartyWithVotes> results(int round) throws IncompleteElectionException, IllegalArgumentException
+	{
+		if(!isComplete)
+			throw new IncompleteElectionException();
+
+		if(round < 1 || round > roundResults.size())
+			throw new IllegalArgumentException("Invalid round: " + round);
+
+		return roundResults.get(round-1);
+	}
+
+	@Override
+	public ImmutableList<PartyWithDoubleValue> seatResults()
+	{
+		if(!isComplete)
+			throw new IncompleteElectionException();
+
+		return ImmutableList.<PartyWithDoubleValue>builder().addAll(seatResults).build();
+	}
+
+	@Override
+	protected void writeResults(Appendable out) throws IOException
+	{
+		out.append("N-minus-one Round Election Results\n")
+		   .append("==================================\n");
+
+		for(int i=0; i<roundResults.size(); i++)
+		{
+			out.append("Round ").append(Integer.toString(i+1)).append('\n');
+
+			out.append("     Party     | Votes\n")
+			   .append("---------------+------\n");
+
+			for(PartyWithVotes p : roundResults.get(i))
+				format(out, "%-15s| %5.2f%n", p.getParty().getName(), 100.0 * p.getVotes(1) / noVoters());
+
+			out.append('\n');
+		}
+
+		//print the seat results
+		out.append("Seat Results\n");
+		out.append("     Party     | Seats\n")
+		   .append("---------------+------\n");
+
+		for(PartyWithDoubleValue p : seatResults)
+			format(out, "%-15s| %5.2f%n", p.getParty().getName(), p.getValue());
+		out.append('\n');
+	}
+}
@@ -1,5 +1,6 @@
 
 import com.google.common.collect.ImmutableList;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -19,12 +20,8 @@ public class PRElection extends Election
 	}
 
 	@Override
-	public String toString()
+	protected void writeResults(Appendable out) throws IOException
 	{
-		if(!isComplete())
-			return "This election isn't complete.";
-
-
 		//get the election results
 		ImmutableList<PartyWithVotes> results = results();
 
@@ -38,18 +35,13 @@ public class PRElection extends Election
 
 
 		//create a header
-		String buffer = "Proportional Representation Election Results\n"
-				      + "============================================\n";
+		out.append("Proportional Representation Election Results\n")
+		   .append("============================================\n");
 
 		//print the info for each party
 		for(PartyWithIntValue p : firstVotes)
-			buffer += p + "\n";
-
-		//print some voter statistics
-		buffer += "\n" + voterStats();
-		Party winningParty = firstVotes.get(0).getParty();
-		buffer += "Average distance from winning party: " + avgDistanceFromParty(winningParty) + "\n";
+			out.append(p.toString()).append('\n');
 
-		return buffer;
+		out.append('\n');
 	}
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+
+import com.google.common.collect.Multiset;
+
+public class PartyWithVotes implements Comparable<PartyWithVotes>
+{
+	/** The number of votes for this party, indexed by choice number - 1 */
+	private final int[] votes;
+	private final Party party;
+	private final int minimumPreference;
+
+	public PartyWithVotes(final Party party, Multiset<Vote> votes)
+	{
+		this(party, votesByChoice(party, votes));
+	}
+
+	/**
+	 * Constructs a party with votes from a count of the votes for each choice.
+	 * @param party the party.
+	 * @param votesByChoice the number of votes for the party, indexed by choice number - 1.
+	 */
+	public PartyWithVotes(Party party, int[] votesByChoice)
+	{
+		this.party = party;
+		this.votes = votesByChoice.clone();
+
+		//check for the lowest preference vote avaiable
+		int minPref = 0;
+		for(int pref=1; pref<=votes.length; pref++)
+			if(votes[pref-1] > 0) minPref = pref;
+
+		minimumPreference = minPref;
+	}
+
+	/**
+	 * Counts the votes for a party out of a multiset of votes for all parties.
+	 */
+	private static int[] votesByChoice(Party party, Multiset<Vote> votes)
+	{
+		int maxChoice = 0;
+		for(Vote v : votes.elementSet())
+			if(v.getParty() == party && v.getChoiceNumber() > maxChoice) maxChoice = v.getChoiceNumber();
+
+		int[] votesByChoice = new int[maxChoice];
+		for(Multiset.Entry<Vote> e : votes.entrySet())
+		{
+			Vote v = e.getElement();
+			if(v.getParty() == party && v.getChoiceNumber() >= 1)
+				votesByChoice[v.getChoiceNumber()-1] += e.getCount();
+		}
+
+		return votesByChoice;
+	}
+
+	public int getVotes(int preference)
+	{
+		if(preference < 1 || preference > votes.length)
+			return 0;
+
+		return votes[preference-1];
+	}
+
+	public Party getParty()
+	{
+		return party;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder buffer = new StringBuilder("Party ").append(party.getName()).append(":\n");
+
+		for(int pref=1; pref<=minimumPreference; pref++)
+		{
+			buffer.append("Choice ").append(pref).append(": ").append(getVotes(pref)).append('\n');
+		}
+
+		return buffer.toString();
+	}
+
+	/**
+	 * Compares the votes of two parties choice by choice, up to the lowest
+	 * preference both parties received votes for. The votes are read
+	 * straight from the arrays, so sorting results allocates nothing.
+	 */
+	@Override
+	public int compareTo(PartyWithVotes o)
+	{
+		int limit = Math.min(minimumPreference, o.minimumPreference);
+		for(int i=0; i<limit; i++)
+		{
+			if(votes[i] != o.votes[i])
+				return votes[i] - o.votes[i];
+		}
+
+		return 0;
+	}
+
+}
@@ -0,0 +1,299 @@
+/**
+ * A spatial index of voters over the social and economic preference plane.
+ * The plane is a 101 by 101 grid of integer preferences, and the index holds
+ * the number of voters at each point of it. Distance queries against
+ * parties take time proportional to the size of the grid rather than the
+ * number of voters, and distances between grid points are exact.
+ */
+public class PreferenceGrid
+{
+	/** The number of distinct values each preference can take */
+	static final int VALUES = 101;
+
+	/** The square root of every squared distance between two grid points */
+	private static final double[] SQUARE_ROOTS = new double[2 * 100 * 100 + 1];
+	static
+	{
+		for(int i=0; i<SQUARE_ROOTS.length; i++)
+			SQUARE_ROOTS[i] = Math.sqrt(i);
+	}
+
+	/** The number of voters at each point, indexed by socPref * VALUES + econPref */
+	private final long[] counts = new long[VALUES * VALUES];
+	/** The total number of voters */
+	private long size;
+
+	/**
+	 * Constructs a new, empty grid.
+	 */
+	public PreferenceGrid()
+	{
+	}
+
+	/**
+	 * Adds a voter to the grid.
+	 * @param v the voter to be added.
+	 */
+	public void add(Voter v)
+	{
+		counts[v.getSocialPreference() * VALUES + v.getEconomicPreference()]++;
+		size++;
+	}
+
+	/**
+	 * Adds all the voters in a voter table to the grid.
+	 * @param table the table whose voters are to be added.
+	 */
+	public void add(VoterTable table)
+	{
+		int n = table.size();
+		for(int i=0; i<n; i++)
+			counts[table.getSocialPreference(i) * VALUES + table.getEconomicPreference(i)]++;
+
+		size += n;
+	}
+
+	/**
+	 * Adds all the voters in an electorate to the grid.
+	 * @param electorate the electorate whose voters are to be added.
+	 */
+	public void add(Electorate electorate)
+	{
+		int[] profiles = electorate.sortedProfiles();
+		int[] weights = electorate.sortedCounts();
+		for(int i=0; i<profiles.length; i++)
+		{
+			int point = VoterProfile.socialPreference(profiles[i]) * VALUES + VoterProfile.economicPreference(profiles[i]);
+			counts[point] += weights[i];
+		}
+
+		size += electorate.size();
+	}
+
+	/**
+	 * Adds all the voters in an electorate file to the grid, reading them
+	 * from the mapping in a single pass.
+	 * @param file the file whose voters are to be added.
+	 * @throws IllegalStateException if a voter in the file is out of range.
+	 */
+	public void add(ElectorateFile file) throws IllegalStateException
+	{
+		int n = file.size();
+		for(int i=0; i<n; i++)
+		{
+			int profile = file.getProfile(i);
+			counts[VoterProfile.socialPreference(profile) * VALUES + VoterProfile.economicPreference(profile)]++;
+		}
+
+		size += n;
+	}
+
+	/**
+	 * Adds a number of voters with the given preferences to the grid.
+	 * @param socPref the social preference, from 0 to 100.
+	 * @param econPref the economic preference, from 0 to 100.
+	 * @param count the number of voters.
+	 */
+	void add(int socPref, int econPref, long count)
+	{
+		counts[socPref * VALUES + econPref] += count;
+		size += count;
+	}
+
+	/**
+	 * Adds all the voters in another grid to this one.
+	 * @param other the grid whose voters are to be added.
+	 */
+	public void addAll(PreferenceGrid other)
+	{
+		for(int point=0; point<counts.length; point++)
+			counts[point] += other.counts[point];
+
+		size += other.size;
+	}
+
+	/**
+	 * Returns the total number of voters in the grid.
+	 * @return the total number of voters in the grid.
+	 */
+	public long size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the number of voters with the given preferences.
+	 * @param socPref the social preference.
+	 * @param econPref the economic preference.
+	 * @return the number of voters with the given preferences.
+	 */
+	public long count(int socPref, int econPref)
+	{
+		if(socPref < 0 || socPref > 100 || econPref < 0 || econPref > 100)
+			return 0;
+
+		return counts[socPref * VALUES + econPref];
+	}
+
+	/**
+	 * Returns the number of voters at each point of the grid, indexed by
+	 * socPref * 101 + econPref. The array must not be modified.
+	 */
+	long[] counts()
+	{
+		return counts;
+	}
+
+	/**
+	 * Returns the distance between two grid points from its square.
+	 * @param squaredDistance the squared distance, from 0 to 20000.
+	 * @return the distance.
+	 */
+	static double distance(int squaredDistance)
+	{
+		return SQUARE_ROOTS[squaredDistance];
+	}
+
+	/**
+	 * Returns the sum of the social preferences of all voters in the grid.
+	 * @return the sum of the social preferences of all voters in the grid.
+	 */
+	public long sumSocialPreference()
+	{
+		long sum = 0;
+		for(int point=0; point<counts.length; point++)
+			sum += counts[point] * (point / VALUES);
+
+		return sum;
+	}
+
+	/**
+	 * Returns the sum of the economic preferences of all voters in the grid.
+	 * @return the sum of the economic preferences of all voters in the grid.
+	 */
+	public long sumEconomicPreference()
+	{
+		long sum = 0;
+		for(int point=0; point<counts.length; point++)
+			sum += counts[point] * (point % VALUES);
+
+		return sum;
+	}
+
+	/**
+	 * Returns the sum of the euclidian preference distances of all voters in
+	 * the grid to the provided party.
+	 * @param p the party from which the distances are calculated.
+	 * @return the sum of the distances of all voters in the grid to the party.
+	 */
+	public double sumDistanceFromParty(Party p)
+	{
+		int socPol  = p.getSocialPolicy();
+		int econPol = p.getEconomicPolicy();
+
+		double sum = 0;
+		for(int soc=0; soc<VALUES; soc++)
+		{
+			int socDis = soc - socPol;
+			int row = soc * VALUES;
+			for(int econ=0; econ<VALUES; econ++)
+			{
+				long count = counts[row + econ];
+				if(count == 0)
+					continue;
+
+				int econDis = econ - econPol;
+				sum += count * SQUARE_ROOTS[socDis*socDis + econDis*econDis];
+			}
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Returns the average euclidian preference distance of the voters in the
+	 * grid to the provided party.
+	 * @param p the party from which the average distance is calculated.
+	 * @return the average distance of the voters in the grid to the party.
+	 */
+	public double avgDistanceFromParty(Party p)
+	{
+		return sumDistanceFromParty(p) / size;
+	}
+
+	/**
+	 * Returns the number of voters whose preferences are strictly closer to
+	 * one party's policies than to another's.
+	 * @param a the party the voters must be closer to.
+	 * @param b the party the voters must be further from.
+	 * @return the number of voters closer to party a than to party b.
+	 */
+	public long closerTo(Party a, Party b)
+	{
+		long closer = 0;
+		for(int soc=0; soc<VALUES; soc++)
+		{
+			for(int econ=0; econ<VALUES; econ++)
+			{
+				if(squaredDistance(soc, econ, a) < squaredDistance(soc, econ, b))
+					closer += counts[soc * VALUES + econ];
+			}
+		}
+
+		return closer;
+	}
+
+	/**
+	 * Counts the voters in the Voronoi region of each party, that is the
+	 * voters whose preferences are closer to that party's policies than to
+	 * any other's. Voters equally close to several of the nearest parties
+	 * belong to no region and are counted separately.
+	 * @param parties the parties.
+	 * @return the number of voters in each party's region, in the order of
+	 * the parties, followed by the number of voters on a boundary.
+	 */
+	public long[] voronoiCounts(Party... parties)
+	{
+		long[] regions = new long[parties.length + 1];
+		for(int soc=0; soc<VALUES; soc++)
+		{
+			for(int econ=0; econ<VALUES; econ++)
+			{
+				long count = counts[soc * VALUES + econ];
+				if(count == 0)
+					continue;
+
+				//find the nearest party, noting whether another is as near
+				int nearest = parties.length;
+				int nearestDistance = Integer.MAX_VALUE;
+				for(int i=0; i<parties.length; i++)
+				{
+					int d = squaredDistance(soc, econ, parties[i]);
+					if(d < nearestDistance)
+					{
+						nearest = i;
+						nearestDistance = d;
+					}
+					else if(d == nearestDistance)
+					{
+						nearest = parties.length;
+					}
+				}
+
+				regions[nearest] += count;
+			}
+		}
+
+		return regions;
+	}
+
+	/**
+	 * Returns the squared distance between a grid point and a party's policies.
+	 */
+	private static int squaredDistance(int socPref, int econPref, Party p)
+	{
+		int socDis  = socPref - p.getSocialPolicy();
+		int econDis = econPref - p.getEconomicPolicy();
+		return socDis*socDis + econDis*econDis;
+	}
+}
@@ -0,0 +1,125 @@
+
+import java.util.SplittableRandom;
+
+/**
+ * Counts the ballots of a voter table or an electorate file in fixed size
+ * chunks of voters, grouping the voters of each chunk by profile so that
+ * each distinct profile is ranked only once and its ballot counted with the
+ * number of voters sharing it.
+ *
+ * The voters of a chunk are grouped with two counting sorts, which only ever
+ * touch small, dense arrays. The first sorts the voters into buckets by
+ * social and economic preference. The second counts the preference and
+ * competence ratios within a single bucket. A chunk depends only on the
+ * voters in it, so a table and a file holding the same voters are counted
+ * the same way, and memory use does not grow with the number of voters.
+ */
+class ProfileGroups implements ChunkCounter
+{
+	/** The number of voters in each chunk */
+	static final int CHUNK_SIZE = 1 << 16;
+	/** The number of distinct values each attribute can take */
+	private static final int VALUES = 101;
+
+	/** The voters, or null if they are read from the file */
+	private final VoterTable table;
+	/** The file the voters are read from, or null if they are in the table */
+	private final ElectorateFile file;
+	private final int size;
+	private final Party[] parties;
+	private final long seed;
+
+	/**
+	 * Constructs a counter for the voters in a voter table.
+	 * @param voters the voters whose ballots are counted.
+	 * @param parties the parties being ranked.
+	 * @param seed the seed from which each chunk's random number generator is derived.
+	 */
+	ProfileGroups(VoterTable voters, Party[] parties, long seed)
+	{
+		this.table = voters;
+		this.file = null;
+		this.size = voters.size();
+		this.parties = parties;
+		this.seed = seed;
+	}
+
+	/**
+	 * Constructs a counter for the voters in an electorate file, which are
+	 * read from its mapping as they are counted.
+	 * @param file the file whose ballots are counted.
+	 * @param parties the parties being ranked.
+	 * @param seed the seed from which each chunk's random number generator is derived.
+	 */
+	ProfileGroups(ElectorateFile file, Party[] parties, long seed)
+	{
+		this.table = null;
+		this.file = file;
+		this.size = file.size();
+		this.parties = parties;
+		this.seed = seed;
+	}
+
+	@Override
+	public int noChunks()
+	{
+		return (int) (((long) size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+	}
+
+	@Override
+	public void count(int chunk, BallotSink sink)
+	{
+		BallotRanker ranker = new BallotRanker(parties, new SplittableRandom(Seeds.mix(seed, chunk)));
+
+		int from = chunk * CHUNK_SIZE;
+		int to = (int) Math.min((long) from + CHUNK_SIZE, size);
+
+		int[] profiles = new int[to - from];
+		for(int i=from; i<to; i++)
+			profiles[i - from] = table != null ? table.getProfile(i) : file.getProfile(i);
+
+		//count the voters in each bucket, then turn the counts into offsets
+		int[] bucketStart = new int[VALUES * VALUES + 1];
+		for(int profile : profiles)
+			bucketStart[bucket(profile) + 1]++;
+		for(int b=0; b<VALUES * VALUES; b++)
+			bucketStart[b+1] += bucketStart[b];
+
+		//place each voter's ratios in its bucket
+		short[] ratios = new short[profiles.length];
+		int[] next = bucketStart.clone();
+		for(int profile : profiles)
+			ratios[next[bucket(profile)]++] = (short) (VoterProfile.preferenceRatio(profile) * VALUES + VoterProfile.competenceRatio(profile));
+
+		int[] weights = new int[VALUES * VALUES];
+		for(int bucket=0; bucket<VALUES * VALUES; bucket++)
+		{
+			int start = bucketStart[bucket];
+			int end = bucketStart[bucket+1];
+
+			for(int i=start; i<end; i++)
+				weights[ratios[i]]++;
+
+			//rank each distinct profile the first time it is seen, and clear
+			//its weight so it is not ranked again
+			for(int i=start; i<end; i++)
+			{
+				int r = ratios[i];
+				int weight = weights[r];
+				if(weight == 0)
+					continue;
+
+				weights[r] = 0;
+				ranker.count(sink, bucket / VALUES, bucket % VALUES, r / VALUES, r % VALUES, weight);
+			}
+		}
+	}
+
+	/**
+	 * Returns the social and economic preference bucket of a packed profile.
+	 */
+	private static int bucket(int profile)
+	{
+		return VoterProfile.socialPreference(profile) * VALUES + VoterProfile.economicPreference(profile);
+	}
+}
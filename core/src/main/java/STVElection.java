@@ -0,0 +1,304 @@
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A class to represent a Single Transferable Vote election. Each voter ranks
+ * every party, and a party is elected once its votes reach the Droop quota.
+ * An elected party's surplus and an excluded party's votes are transferred to
+ * each voter's next choice still standing, until every seat is filled. With a
+ * single seat this is an instant runoff election.
+ *
+ * Every voter is ranked once, and identical ballots are counted together as
+ * a single bucket with a weight. Each bucket sits on the pile of the party it
+ * currently counts for, so a transfer only moves the buckets on the pile of
+ * the party elected or excluded, and surpluses are transferred by scaling
+ * the weights of those buckets. The cost of the count depends on the number
+ * of distinct ballots rather than on the number of voters.
+ */
+public class STVElection extends Election
+{
+	private int noSeats = 1;
+
+	private ImmutableList<PartyWithVotes> firstRound;
+	/** The votes of the parties standing in each round, in order */
+	private List<ImmutableList<PartyWithDoubleValue>> roundResults;
+	/** The parties elected, in order of election */
+	private List<Party> elected;
+	/** The votes of each party, by id, when it was elected or excluded */
+	private double[] finalVotes;
+	private List<PartyWithDoubleValue> seatResults;
+
+	/**
+	 * Constructs a new Single Transferable Vote election with one seat.
+	 */
+	public STVElection()
+	{
+		super();
+	}
+
+	/**
+	 * Constructs a new Single Transferable Vote election.
+	 * @param noSeats the number of seats to fill.
+	 * @throws IllegalArgumentException if the number of seats is less than 1.
+	 */
+	public STVElection(int noSeats) throws IllegalArgumentException
+	{
+		super();
+		setSeats(noSeats);
+	}
+
+	/**
+	 * Sets the number of seats to fill.
+	 * @param noSeats the number of seats, 1 for an instant runoff election.
+	 * @throws IllegalArgumentException if the number of seats is less than 1.
+	 */
+	public void setSeats(int noSeats) throws IllegalArgumentException
+	{
+		if(noSeats < 1)
+			throw new IllegalArgumentException("Invalid number of seats: " + noSeats);
+
+		this.noSeats = noSeats;
+	}
+
+	/**
+	 * Returns the number of seats to fill.
+	 * @return the number of seats to fill.
+	 */
+	public int getSeats()
+	{
+		return noSeats;
+	}
+
+	@Override
+	public void run()
+	{
+		//ballots identify each party by its id
+		int n = noParties();
+		Party[] partyArray = partyArray();
+
+		//rank every voter once, and count the first preferences
+		BallotBox ballots = countBallots(partyArray);
+		firstRound = ballots.tally().results(partyArray);
+
+		//ties are broken in favour of the party with more first preferences
+		int[] firstRank = new int[n];
+		for(int r=0; r<n; r++)
+			firstRank[partyId(firstRound.get(r).getParty())] = r;
+
+		//every bucket starts on the pile of its first choice
+		int noBallots = ballots.noBallots();
+		int[] cursor = new int[noBallots];
+		double[] weight = new double[noBallots];
+		Pile[] piles = new Pile[n];
+		for(int p=0; p<n; p++)
+			piles[p] = new Pile();
+		for(int b=0; b<noBallots; b++)
+		{
+			weight[b] = ballots.getCount(b);
+			piles[ballots.getParty(b, 0)].add(b, weight[b]);
+		}
+
+		double quota = Math.floor((double) ballots.noVoters() / (noSeats + 1)) + 1;
+		boolean[] standing = new boolean[n];
+		Arrays.fill(standing, true);
+		int noStanding = n;
+
+		roundResults = new ArrayList<>();
+		elected = new ArrayList<>(noSeats);
+		finalVotes = new double[n];
+
+		while(elected.size() < noSeats && noStanding > 0)
+		{
+			List<PartyWithDoubleValue> round = new ArrayList<>(noStanding);
+			for(int p=0; p<n; p++)
+				if(standing[p]) round.add(new PartyWithDoubleValue(partyArray[p], piles[p].votes));
+			Collections.sort(round, Collections.reverseOrder());
+			roundResults.add(ImmutableList.copyOf(round));
+
+			//fill the remaining seats if there are only as many parties left
+			if(elected.size() + noStanding <= noSeats)
+			{
+				for(PartyWithDoubleValue p : round)
+				{
+					int id = partyId(p.getParty());
+					finalVotes[id] = p.getValue();
+					standing[id] = false;
+					elected.add(p.getParty());
+				}
+				noStanding = 0;
+				break;
+			}
+
+			//find the strongest and weakest parties still standing
+			int top = -1, bottom = -1;
+			for(int p=0; p<n; p++)
+			{
+				if(!standing[p])
+					continue;
+
+				if(top < 0 || piles[p].votes > piles[top].votes || (piles[p].votes == piles[top].votes && firstRank[p] < firstRank[top]))
+					top = p;
+				if(bottom < 0 || piles[p].votes < piles[bottom].votes || (piles[p].votes == piles[bottom].votes && firstRank[p] > firstRank[bottom]))
+					bottom = p;
+			}
+
+			//elect the strongest party if it reached the quota and pass on
+			//its surplus, otherwise exclude the weakest and pass on its votes
+			int moved;
+			double transferValue;
+			if(piles[top].votes >= quota)
+			{
+				moved = top;
+				transferValue = (piles[top].votes - quota) / piles[top].votes;
+				elected.add(partyArray[top]);
+			}
+			else
+			{
+				moved = bottom;
+				transferValue = 1;
+			}
+
+			finalVotes[moved] = piles[moved].votes;
+			standing[moved] = false;
+			noStanding--;
+
+			//there is nothing to transfer once every seat is filled
+			Pile pile = piles[moved];
+			piles[moved] = null;
+			if(transferValue == 0 || elected.size() == noSeats)
+				continue;
+
+			for(int i=0; i<pile.size; i++)
+			{
+				int b = pile.ballots[i];
+
+				//move on to the voter's next choice still standing, if any
+				int rank = cursor[b] + 1;
+				while(rank < n && !standing[ballots.getParty(b, rank)])
+					rank++;
+				if(rank == n)
+					continue;
+
+				cursor[b] = rank;
+				weight[b] *= transferValue;
+				piles[ballots.getParty(b, rank)].add(b, weight[b]);
+			}
+		}
+
+		//the parties still standing keep the votes they ended with
+		for(int p=0; p<n; p++)
+			if(standing[p]) finalVotes[p] = piles[p].votes;
+
+		//elected parties share the seats, in order of election
+		seatResults = new ArrayList<>(n);
+		for(Party p : elected)
+			seatResults.add(new PartyWithDoubleValue(p, 100.0 / noSeats));
+		for(PartyWithVotes p : firstRound)
+			if(!elected.contains(p.getParty())) seatResults.add(new PartyWithDoubleValue(p.getParty(), 0));
+
+		isComplete = true;
+	}
+
+	/**
+	 * Returns the first preference results of this election.
+	 * @return A list of parties with votes sorted in descending order.
+	 * @throws IncompleteElectionException if the election is not complete.
+	 */
+	@Override
+	public ImmutableList<PartyWithVotes> results() throws IncompleteElectionException
+	{
+		if(!isComplete) throw new IncompleteElectionException();
+
+		return firstRound;
+	}
+
+	/**
+	 * Returns the number of rounds of counting.
+	 * @return the number of rounds of counting.
+	 * @throws IncompleteElectionException if the election is not complete.
+	 */
+	public int noRounds() throws IncompleteElectionException
+	{
+		if(!isComplete) throw new IncompleteElectionException();
+
+		return roundResults.size();
+	}
+
+	/**
+	 * Returns the votes of the parties standing in a chosen round, including
+	 * the votes transferred to them. Votes transferred from a surplus are
+	 * fractional.
+	 * @param round the round, from 1 to noRounds().
+	 * @return A list of parties with votes sorted in descending order.
+	 * @throws IncompleteElectionException if the election is not complete.
+	 * @throws IllegalArgumentException if the round provided does not exist.
+	 */
+	public ImmutableList<PartyWithDoubleValue> roundResults(int round) throws IncompleteElectionException, IllegalArgumentException
+	{
+		if(round < 1 || round > noRounds())
+			throw new IllegalArgumentException("Invalid round: " + round);
+
+		return roundResults.get(round - 1);
+	}
+
+	/**
+	 * Returns the parties elected, in order of election.
+	 * @return the parties elected.
+	 * @throws IncompleteElectionException if the election is not complete.
+	 */
+	public ImmutableList<Party> electedParties() throws IncompleteElectionException
+	{
+		if(!isComplete) throw new IncompleteElectionException();
+
+		return ImmutableList.copyOf(elected);
+	}
+
+	@Override
+	protected void writeResults(Appendable out) throws IOException
+	{
+		out.append("Single Transferable Vote Election Results\n")
+		   .append("=========================================\n");
+
+		out.append("     Party     | Seats | 1st Prf | Final\n")
+		   .append("---------------+-------+---------+-------\n");
+
+		for(PartyWithDoubleValue p : seatResults)
+		{
+			double finalPercentage = 100.0 * finalVotes[partyId(p.getParty())] / noVoters();
+			format(out, "%-15s| %-5.2f |  %-5.2f  |  %-5.2f%n", p.getParty().getName(), p.getValue(), percentageVotesForParty(p.getParty(), 1), finalPercentage);
+		}
+		format(out, "%d rounds%n", roundResults.size());
+		out.append('\n');
+	}
+
+	@Override
+	public ImmutableList<PartyWithDoubleValue> seatResults() throws IncompleteElectionException
+	{
+		if(!isComplete) throw new IncompleteElectionException();
+
+		return ImmutableList.copyOf(seatResults);
+	}
+
+	/**
+	 * The buckets of ballots currently counting for a party, and their total weight.
+	 */
+	private static class Pile
+	{
+		private int[] ballots = new int[4];
+		private int size;
+		private double votes;
+
+		private void add(int ballot, double weight)
+		{
+			if(size == ballots.length)
+				ballots = Arrays.copyOf(ballots, size * 2);
+
+			ballots[size++] = ballot;
+			votes += weight;
+		}
+	}
+}
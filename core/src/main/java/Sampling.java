@@ -0,0 +1,112 @@
+
+import java.util.SplittableRandom;
+
+/**
+ * Samples discrete and continuous distributions that java.util does not
+ * provide. All methods are exact, and none of them takes time proportional to
+ * the number of trials.
+ */
+final class Sampling
+{
+	/** The number of trials up to which binomials are sampled trial by trial */
+	private static final int DIRECT_BINOMIAL_TRIALS = 16;
+
+	/**
+	 * Prevent instances of this class from being created by making the
+	 * constructor private
+	 */
+	private Sampling() {}
+
+	/**
+	 * Samples a binomial distribution. Large samples are reduced with
+	 * Knuth's beta splitting: the a-th smallest of n uniforms is beta
+	 * distributed, and tells how many of the trials fall on either side of
+	 * it. Each split halves the number of trials left.
+	 * @param randGen the random number generator to draw from.
+	 * @param n the number of trials.
+	 * @param p the probability of success of each trial.
+	 * @return the number of successes.
+	 */
+	static int binomial(SplittableRandom randGen, int n, double p)
+	{
+		int successes = 0;
+
+		while(n > DIRECT_BINOMIAL_TRIALS)
+		{
+			if(p <= 0)
+				return successes;
+			if(p >= 1)
+				return successes + n;
+
+			int a = 1 + n / 2;
+			int b = n + 1 - a;
+			double x = beta(randGen, a, b);
+
+			if(x >= p)
+			{
+				//the a-th uniform is a failure, as are all those above it
+				n = a - 1;
+				p = p / x;
+			}
+			else
+			{
+				//the a-th uniform is a success, as are all those below it
+				successes += a;
+				n = b - 1;
+				p = (p - x) / (1 - x);
+			}
+		}
+
+		for(int i=0; i<n; i++)
+			if(randGen.nextDouble() < p) successes++;
+
+		return successes;
+	}
+
+	/**
+	 * Samples a beta distribution with shapes of at least 1.
+	 * @param randGen the random number generator to draw from.
+	 * @param a the first shape.
+	 * @param b the second shape.
+	 * @return a beta distributed value between 0 and 1.
+	 */
+	static double beta(SplittableRandom randGen, double a, double b)
+	{
+		double x = gamma(randGen, a);
+		double y = gamma(randGen, b);
+
+		return x / (x + y);
+	}
+
+	/**
+	 * Samples a gamma distribution with unit scale and a shape of at least 1,
+	 * using Marsaglia and Tsang's method.
+	 * @param randGen the random number generator to draw from.
+	 * @param shape the shape.
+	 * @return a gamma distributed value.
+	 */
+	static double gamma(SplittableRandom randGen, double shape)
+	{
+		double d = shape - 1.0/3;
+		double c = 1 / Math.sqrt(9 * d);
+
+		while(true)
+		{
+			double x, v;
+			do
+			{
+				x = GaussianSampler.ZIGGURAT.next(randGen);
+				v = 1 + c * x;
+			}
+			while(v <= 0);
+
+			v = v * v * v;
+			double u = randGen.nextDouble();
+
+			if(u < 1 - 0.0331 * x * x * x * x)
+				return d * v;
+			if(Math.log(u) < 0.5 * x * x + d * (1 - v + Math.log(v)))
+				return d * v;
+		}
+	}
+}
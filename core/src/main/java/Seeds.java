@@ -0,0 +1,26 @@
+/**
+ * Derives independent seeds from a single seed, so work split into numbered
+ * pieces draws the same random numbers however the pieces are scheduled.
+ */
+final class Seeds
+{
+	/**
+	 * Prevent instances of this class from being created by making the
+	 * constructor private
+	 */
+	private Seeds() {}
+
+	/**
+	 * Derives a well mixed seed for a numbered piece of work from a seed.
+	 * @param seed the seed of the whole job.
+	 * @param index the number of the piece of work.
+	 * @return the seed for that piece of work.
+	 */
+	static long mix(long seed, long index)
+	{
+		long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,119 @@
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A dense count of ballots, holding the number of votes each party received
+ * at each preference level. Parties are identified by their index in the
+ * party array the ballots were ranked against.
+ */
+public class Tally implements BallotCount<Tally>
+{
+	/** The number of parties being counted */
+	private final int noParties;
+	/** The vote counts, indexed by party * noParties + (choice - 1) */
+	private final int[] counts;
+
+	/**
+	 * Constructs a new, empty tally for the given number of parties.
+	 * @param noParties the number of parties being counted.
+	 */
+	public Tally(int noParties)
+	{
+		this.noParties = noParties;
+		this.counts = new int[noParties * noParties];
+	}
+
+	/**
+	 * Adds a ballot to the tally.
+	 * @param ranking the party indices in descending order of preference.
+	 */
+	public void addBallot(int[] ranking)
+	{
+		for(int rank=0; rank<noParties; rank++)
+			counts[ranking[rank] * noParties + rank]++;
+	}
+
+	/**
+	 * Adds a number of identical ballots to the tally.
+	 * @param ranking the party indices in descending order of preference.
+	 * @param weight the number of ballots with this ranking.
+	 */
+	@Override
+	public void addBallot(int[] ranking, int weight)
+	{
+		for(int rank=0; rank<noParties; rank++)
+			counts[ranking[rank] * noParties + rank] += weight;
+	}
+
+	/**
+	 * Creates a new, empty tally for the same number of parties.
+	 * @return a new, empty tally.
+	 */
+	@Override
+	public Tally emptyCopy()
+	{
+		return new Tally(noParties);
+	}
+
+	/**
+	 * Adds all the votes counted in another tally to this one.
+	 * @param other the tally to be merged into this one.
+	 * @throws IllegalArgumentException if the tallies count different numbers of parties.
+	 */
+	@Override
+	public void merge(Tally other) throws IllegalArgumentException
+	{
+		if(other.noParties != noParties)
+			throw new IllegalArgumentException("Cannot merge tallies of different sizes");
+
+		for(int i=0; i<counts.length; i++)
+			counts[i] += other.counts[i];
+	}
+
+	/**
+	 * Returns the number of votes for a party with a certain choice.
+	 * @param party the index of the party.
+	 * @param choice the choice number, starting from 1.
+	 * @return the number of votes for the party with that choice.
+	 */
+	public int getVotes(int party, int choice)
+	{
+		if(choice < 1 || choice > noParties)
+			return 0;
+
+		return counts[party * noParties + choice - 1];
+	}
+
+	/**
+	 * Returns the number of parties being counted.
+	 * @return the number of parties being counted.
+	 */
+	public int noParties()
+	{
+		return noParties;
+	}
+
+	/**
+	 * Builds the results for each party from this tally.
+	 * @param parties the parties, in the order used for ranking.
+	 * @return a list of parties with votes sorted in descending order.
+	 */
+	public ImmutableList<PartyWithVotes> results(Party[] parties)
+	{
+		List<PartyWithVotes> partyResults = new ArrayList<>(noParties);
+		for(int i=0; i<noParties; i++)
+		{
+			int[] votes = new int[noParties];
+			System.arraycopy(counts, i * noParties, votes, 0, noParties);
+			partyResults.add(new PartyWithVotes(parties[i], votes));
+		}
+
+		//sort it into descending order
+		Collections.sort(partyResults, Collections.reverseOrder());
+
+		return ImmutableList.copyOf(partyResults);
+	}
+}
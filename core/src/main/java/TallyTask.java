@@ -0,0 +1,111 @@
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts a range of chunks of ballots, splitting the range in half until a
+ * single chunk remains. Each chunk is counted into its own sink and the
+ * sinks are merged on the way back up, so the result does not depend on
+ * how the chunks were scheduled.
+ * @param <S> the type of sink the ballots are counted into.
+ */
+class TallyTask<S extends BallotCount<S>> extends RecursiveTask<S>
+{
+	private static final long serialVersionUID = 1L;
+
+	/** The pools counts are run on, by parallelism, kept between counts */
+	private static final ConcurrentMap<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+	private final ChunkCounter counter;
+	/** An empty sink from which the chunks' sinks are copied */
+	private final S empty;
+	private final int fromChunk;
+	private final int toChunk;
+
+	/**
+	 * Constructs a task counting the chunks in the range [fromChunk, toChunk).
+	 * @param counter the source of the chunks.
+	 * @param empty an empty sink from which the chunks' sinks are copied.
+	 * @param fromChunk the first chunk to count.
+	 * @param toChunk one past the last chunk to count.
+	 */
+	TallyTask(ChunkCounter counter, S empty, int fromChunk, int toChunk)
+	{
+		this.counter = counter;
+		this.empty = empty;
+		this.fromChunk = fromChunk;
+		this.toChunk = toChunk;
+	}
+
+	/**
+	 * Counts all the chunks of a counter on the given number of threads.
+	 * @param counter the source of the chunks.
+	 * @param empty an empty sink of the kind to count into. It is left empty.
+	 * @param parallelism the number of threads, 1 to count on the calling thread.
+	 * @return a new sink holding the ballots of all the chunks.
+	 */
+	static <S extends BallotCount<S>> S countAll(ChunkCounter counter, S empty, int parallelism)
+	{
+		int noChunks = counter.noChunks();
+
+		if(parallelism == 1 || noChunks <= 1)
+		{
+			S sink = empty.emptyCopy();
+			for(int chunk=0; chunk<noChunks; chunk++)
+				counter.count(chunk, sink);
+
+			return sink;
+		}
+
+		return invoke(new TallyTask<S>(counter, empty, 0, noChunks), parallelism);
+	}
+
+	/**
+	 * Runs a task on a pool with the given parallelism without starting new
+	 * threads for it: on the caller's own pool if it already runs in one with
+	 * that parallelism, else on the common pool if its parallelism matches,
+	 * else on a pool created on first use and shared by all later tasks with
+	 * the same parallelism. The pools' threads are daemon threads, so they
+	 * never need to be shut down.
+	 * @param task the task to run.
+	 * @param parallelism the number of threads.
+	 * @return the task's result.
+	 */
+	static <T> T invoke(ForkJoinTask<T> task, int parallelism)
+	{
+		if(ForkJoinTask.inForkJoinPool() && ForkJoinTask.getPool().getParallelism() == parallelism)
+			return task.invoke();
+
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		if(pool.getParallelism() != parallelism)
+			pool = POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+
+		return pool.invoke(task);
+	}
+
+	@Override
+	protected S compute()
+	{
+		if(toChunk - fromChunk <= 1)
+		{
+			S sink = empty.emptyCopy();
+			if(fromChunk < toChunk)
+				counter.count(fromChunk, sink);
+
+			return sink;
+		}
+
+		int middle = (fromChunk + toChunk) >>> 1;
+		TallyTask<S> left = new TallyTask<>(counter, empty, fromChunk, middle);
+		TallyTask<S> right = new TallyTask<>(counter, empty, middle, toChunk);
+
+		left.fork();
+		S sink = right.compute();
+		sink.merge(left.join());
+
+		return sink;
+	}
+}
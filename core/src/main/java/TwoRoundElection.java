@@ -1,5 +1,6 @@
 
 import com.google.common.collect.ImmutableList;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -7,30 +8,34 @@ import java.util.List;
 public class TwoRoundElection extends Election
 {
 	private List<PartyWithDoubleValue> seatResults;
-	private Election firstRound;
-	private Election secondRound;
+	private ImmutableList<PartyWithVotes> firstRound;
+	private ImmutableList<PartyWithVotes> secondRound;
 
 	@Override
 	public void run()
 	{
-		//run the first round normally
-		firstRound = new Election();
-		firstRound.addVoters(getVoters());
-		firstRound.addParties(getParties());
-		firstRound.run();
-
-		ImmutableList<PartyWithVotes> results = firstRound.results();
-
-		//create a new election for the 2nd round
-		secondRound = new Election();
-		secondRound.addVoters(getVoters());
-
-		//add the two top performing parties and run the second round
-		for(int i=0; i<2; i++)
-			secondRound.addParty(results.get(i).getParty());
-		secondRound.run();
+		Party[] partyArray = partyArray();
+
+		//rank every voter once, and run the first round over all the parties
+		BallotBox ballots = countBallots(partyArray);
+		firstRound = ballots.tally().results(partyArray);
+
+		ImmutableList<PartyWithVotes> results = firstRound;
+
+		//the second round between the two top performing parties is a
+		//recount of the same ballots, each voter choosing whichever of the
+		//two they ranked higher
+		Party[] runoffParties = { results.get(0).getParty(), results.get(1).getParty() };
+		int[] runoff = new int[2];
+		for(int i=0; i<partyArray.length; i++)
+		{
+			if(partyArray[i] == runoffParties[0]) runoff[0] = i;
+			if(partyArray[i] == runoffParties[1]) runoff[1] = i;
+		}
+		secondRound = ballots.tally(runoff).results(runoffParties);
+
 		//determine the second round's winner
-		Party winner = secondRound.results().get(0).getParty();
+		Party winner = secondRound.get(0).getParty();
 
 		//determine the percentage of seats for each party
 		List<PartyWithDoubleValue> seatPercentages = new ArrayList<>(results.size());
@@ -38,7 +43,7 @@ public class TwoRoundElection extends Election
 		//give the winning party its seats
 		double winnerSeats;
 		if(percentageVotesForParty(winner, 1) > 51)
-			winnerSeats = firstRound.percentageVotesForParty(winner, 1);
+			winnerSeats = percentageVotesForParty(winner, 1);
 		else
 			winnerSeats = 51;
 
@@ -46,7 +51,7 @@ public class TwoRoundElection extends Election
 
 		//calculate remaining seats and votes
 		double percentSeatsLeft = 100 - winnerSeats;
-		double votesRemaining = firstRound.noVoters() - firstRound.votesForParty(winner, 1);
+		double votesRemaining = noVoters() - votesForParty(winner, 1);
 
 		//calculate the seats for the remaining parties
 		for(PartyWithVotes p : results)
@@ -70,7 +75,7 @@ public class TwoRoundElection extends Election
 	@Override
 	public ImmutableList<PartyWithVotes> results() throws IncompleteElectionException
 	{
-		return firstRound.results();
+		return firstRound;
 	}
 
 	/**
@@ -86,34 +91,37 @@ public class TwoRoundElection extends Election
 			throw new IllegalArgumentException("Invalid round: " + round);
 
 		if(round == 1)
-			return firstRound.results();
+			return firstRound;
 
-		return secondRound.results();
+		return secondRound;
 	}
 
-	@Override
-	public String toString()
+	/**
+	 * Returns the percentage of second round votes for a party, or 0 if the
+	 * party did not make it to the second round.
+	 */
+	private double secondRoundPercentage(Party p)
 	{
-		if(!isComplete())
-			return "This election isn't complete.";
+		for(PartyWithVotes party : secondRound)
+			if(party.getParty() == p) return 100.0*party.getVotes(1)/noVoters();
 
-		String buffer = "Two Round Election Results\n"
-				      + "==========================\n";
+		return 0;
+	}
 
-		buffer += "     Party     | Seats | 1st Rnd | 2nd Rnd\n"
-				+ "---------------+-------+---------+--------\n";
+	@Override
+	protected void writeResults(Appendable out) throws IOException
+	{
+		out.append("Two Round Election Results\n")
+		   .append("==========================\n");
+
+		out.append("     Party     | Seats | 1st Rnd | 2nd Rnd\n")
+		   .append("---------------+-------+---------+--------\n");
 
 		for(PartyWithDoubleValue p : seatResults)
 		{
-			buffer += String.format("%-15s| %-5.2f |  %-5.2f  |  %-5.2f%n", p.getParty().getName(), p.getValue(),percentageVotesForParty(p.getParty(), 1), secondRound.percentageVotesForParty(p.getParty(), 1));
+			format(out, "%-15s| %-5.2f |  %-5.2f  |  %-5.2f%n", p.getParty().getName(), p.getValue(), percentageVotesForParty(p.getParty(), 1), secondRoundPercentage(p.getParty()));
 		}
-		buffer += "\n";
-		buffer += voterStats();
-
-		Party winningParty = results().get(0).getParty();
-		buffer += "Average distance from winning party: " + avgDistanceFromParty(winningParty) + "\n";
-
-		return buffer;
+		out.append('\n');
 	}
 
 	@Override
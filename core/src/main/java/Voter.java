@@ -3,9 +3,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class Voter
 {
+	/** The largest number of parties {@link #rankParties} can rank */
+	public static final int MAX_RANKED_PARTIES = 1 << 16;
+
 	//The voter's social and economic preferences. Both integers from 0-100.
 	//Lower values represent left-leaning preferences and vice versa.
 	private final int socPref;
@@ -126,7 +131,8 @@ public class Voter
 
 	/**
 	 * Takes a set of parties and returns a list of the same parties ordered by
-	 * descending preference.
+	 * descending preference. Ties are broken using the calling thread's own
+	 * random number generator.
 	 * @param parties the set of parties to consider.
 	 * @return a list of the same parties ordered by
 	 * descending preference.
@@ -136,10 +142,68 @@ public class Voter
 		List<Party> partyList = new ArrayList<>(parties);
 
 		//shuffle the list of parties to keep results random, since Collections.sort is stable
-		Collections.shuffle(partyList);
+		Collections.shuffle(partyList, ThreadLocalRandom.current());
+
+		return rankShuffledParties(partyList);
+	}
+
+	/**
+	 * Takes a set of parties and returns a list of the same parties ordered by
+	 * descending preference. Ties are broken using the given random number
+	 * generator, so the same generator state always gives the same ranking.
+	 * @param parties the set of parties to consider.
+	 * @param randGen the random number generator used to break ties.
+	 * @return a list of the same parties ordered by
+	 * descending preference.
+	 */
+	public ImmutableSet<Vote> getPartyPreferences(Set<Party> parties, SplittableRandom randGen)
+	{
+		List<Party> partyList = new ArrayList<>(parties);
+
+		//shuffle the list of parties to keep results random, since Collections.sort is stable
+		for(int i=partyList.size()-1; i>0; i--)
+			Collections.swap(partyList, i, randGen.nextInt(i + 1));
+
+		return rankShuffledParties(partyList);
+	}
+
+	/**
+	 * Ranks an array of parties by descending preference without creating any
+	 * objects. The index in the party array of the voter's first choice is
+	 * written to ranking[0], the second choice to ranking[1] and so on.
+	 * Parties with equal utility are ordered using the given random number
+	 * generator, so the same generator state always gives the same ranking.
+	 * @param parties the parties to consider.
+	 * @param ranking the array the ranking is written to. It must be at least
+	 * as long as the party array.
+	 * @param randGen the random number generator used to break ties.
+	 * @return the ranking array.
+	 * @throws IllegalArgumentException if the ranking array is too short or
+	 * there are more than MAX_RANKED_PARTIES parties.
+	 */
+	public int[] rankParties(Party[] parties, int[] ranking, SplittableRandom randGen) throws IllegalArgumentException
+	{
+		int n = parties.length;
+		if(ranking.length < n)
+			throw new IllegalArgumentException("The ranking array is shorter than the party array");
+		if(n > MAX_RANKED_PARTIES)
+			throw new IllegalArgumentException("Too many parties to rank: " + n);
+
+		for(int i=0; i<n; i++)
+			ranking[i] = BallotRanker.key(utilityValue(parties[i]), i);
 
+		BallotRanker.sortKeys(ranking, n, randGen);
+
+		return ranking;
+	}
+
+	/**
+	 * Ranks an already shuffled list of parties by descending preference.
+	 */
+	private ImmutableSet<Vote> rankShuffledParties(List<Party> partyList)
+	{
 		//Create a list of parties with utility values
-		List<PartyWithIntValue> valueList = new ArrayList<>(parties.size());
+		List<PartyWithIntValue> valueList = new ArrayList<>(partyList.size());
 
 		//find the utility value of each party and add it to the list
 		for(Party p : partyList)
@@ -152,7 +216,7 @@ public class Voter
 		ImmutableSet.Builder<Vote> setBuilder = ImmutableSet.builder();
 
 		//add a vote for every party with the appropriate preference level
-		for(int i=0; i<parties.size(); i++)
+		for(int i=0; i<valueList.size(); i++)
 			setBuilder.add(new Vote(valueList.get(i).getParty(), i+1));
 
 		//build the immutable set and return it
@@ -166,11 +230,42 @@ public class Voter
 	 */
 	public int utilityValue(Party p)
 	{
-		int policyValue = (int) Math.round((getEconomicDifference(p) * prefRatio
-		                 + getSocialDifference(p) * (100 - prefRatio)) / 100.0);
+		return utilityValue(socPref, econPref, prefRatio, compRatio, p);
+	}
+
+	/**
+	 * Determines the utility value a given party would have for a voter with
+	 * the given preferences and ratios.
+	 * @param socPref the voter's social preference.
+	 * @param econPref the voter's economic preference.
+	 * @param prefRatio the voter's preference ratio.
+	 * @param compRatio the voter's competence ratio.
+	 * @param p the party.
+	 * @return the utility value the given party would have for the voter.
+	 */
+	static int utilityValue(int socPref, int econPref, int prefRatio, int compRatio, Party p)
+	{
+		return utilityValue(socPref, econPref, prefRatio, compRatio,
+		                    p.getSocialPolicy(), p.getEconomicPolicy(), p.getCompetence());
+	}
+
+	/**
+	 * Determines the utility value a party with the given policies and
+	 * competence would have for a voter with the given preferences and ratios.
+	 * @return the utility value the party would have for the voter.
+	 */
+	static int utilityValue(int socPref, int econPref, int prefRatio, int compRatio,
+	                        int socPol, int econPol, int competence)
+	{
+		int econDiff = Math.abs(econPol - econPref);
+		int socDiff  = Math.abs(socPol - socPref);
+
+		//Math.round(x / 100.0) done in integer arithmetic. The competence term
+		//is offset by 100 * 100 so the division never sees a negative value.
+		int policyValue = (econDiff * prefRatio + socDiff * (100 - prefRatio) + 50) / 100;
 
-		int finalValue = (int) Math.round((p.getCompetence() * compRatio
-		                 - policyValue * (100 - compRatio)) / 100.0);
+		int finalValue = (competence * compRatio - policyValue * (100 - compRatio)
+		                 + 50 + 100 * 100) / 100 - 100;
 
 		return finalValue;
 	}
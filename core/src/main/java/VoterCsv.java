@@ -0,0 +1,333 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Reads voters from CSV files, one voter per line with the columns of the
+ * {@link Voter} constructor: social preference, economic preference,
+ * preference ratio and competence ratio, each an integer from 0 to 100. A
+ * first line starting with a letter or a quote is a header and ignored, and
+ * so are blank lines and spaces around values.
+ *
+ * The input is parsed a byte at a time from a fixed buffer, so no objects
+ * are created per voter. Counting the voters' ballots ranks each voter as
+ * soon as its line is read and keeps only the distinct ballots, in a single
+ * pass with constant memory whatever the size of the CSV file. Converting to
+ * an electorate file streams each voter straight into the file, to be counted
+ * again later. Reading into an electorate instead keeps a histogram, whose
+ * memory grows with the number of distinct voters.
+ */
+public final class VoterCsv
+{
+	/** The number of bytes read from the input at a time */
+	private static final int BUFFER_SIZE = 1 << 16;
+	/** The number of columns of each voter */
+	private static final int NO_COLUMNS = 4;
+	/** The name of each column, for error messages */
+	private static final String[] COLUMNS = { "social preference", "economic preference",
+	                                          "preference ratio", "competence ratio" };
+
+	/**
+	 * Prevent instances of this class from being created by making the
+	 * constructor private
+	 */
+	private VoterCsv() {}
+
+	/**
+	 * Reads the voters in a CSV file into an electorate. The electorate's
+	 * memory grows with the number of distinct voters rather than the number
+	 * of lines, which suits survey data with few distinct answers. Large
+	 * files of varied voters should be counted with
+	 * {@link #countBallots(Path, Party[], long, PreferenceGrid)} or converted
+	 * with {@link #convert(Path, Path, Party[], long)} instead.
+	 * @param path the path of the CSV file.
+	 * @return an electorate holding the voters.
+	 * @throws IOException if the file cannot be read or a line is not a valid voter.
+	 */
+	public static Electorate readElectorate(Path path) throws IOException
+	{
+		try(InputStream in = Files.newInputStream(path))
+		{
+			return readElectorate(in);
+		}
+	}
+
+	/**
+	 * Reads the voters in a CSV stream into an electorate.
+	 * @param in the stream, which is read to its end but not closed.
+	 * @return an electorate holding the voters.
+	 * @throws IOException if the stream cannot be read or a line is not a valid voter.
+	 */
+	public static Electorate readElectorate(InputStream in) throws IOException
+	{
+		Electorate electorate = new Electorate();
+		read(in, profile -> electorate.addProfile(profile, 1));
+
+		return electorate;
+	}
+
+	/**
+	 * Counts the ballots of the voters in a CSV file over the given parties,
+	 * ranking each voter as soon as its line is read. Only the distinct
+	 * ballots are kept, whose number depends on the number of parties rather
+	 * than the number of voters. Ties are broken as when counting an
+	 * electorate file voter by voter: each chunk of voters is ranked with a
+	 * generator derived from the seed and the chunk's number.
+	 * @param csv the path of the CSV file.
+	 * @param parties the parties to rank, in order.
+	 * @param seed the seed ties are broken from.
+	 * @param voters a grid the voters' preferences are added to.
+	 * @return the ballots cast by the voters.
+	 * @throws IOException if the file cannot be read or a line is not a valid voter.
+	 * @throws IllegalArgumentException if there are more than {@link Voter#MAX_RANKED_PARTIES} parties.
+	 */
+	public static BallotProfile countBallots(Path csv, Party[] parties, long seed, PreferenceGrid voters) throws IOException, IllegalArgumentException
+	{
+		BallotBox ballots = new BallotBox(parties.length);
+		try(InputStream in = Files.newInputStream(csv))
+		{
+			read(in, new Ranking(parties, seed, ballots, voters));
+		}
+
+		return new BallotProfile(parties.clone(), ballots);
+	}
+
+	/**
+	 * Converts a CSV file of voters into an electorate file, which can then
+	 * be memory mapped by {@link ElectorateFile#open(Path)}.
+	 * @param csv the path of the CSV file.
+	 * @param file the path of the electorate file, replaced if it exists.
+	 * @param parties the parties to store with the voters.
+	 * @param seed the seed the voters' ties are broken from, stored with them.
+	 * @return the number of voters converted.
+	 * @throws IOException if a file cannot be read or written, or a line is not a valid voter.
+	 */
+	public static long convert(Path csv, Path file, Party[] parties, long seed) throws IOException
+	{
+		try(InputStream in = Files.newInputStream(csv);
+		    ElectorateFile.Writer writer = ElectorateFile.create(file, parties, seed))
+		{
+			long noVoters = read(in, writer::addProfile);
+			writer.finish();
+			return noVoters;
+		}
+	}
+
+	/**
+	 * Reads the voters in a CSV stream, passing each voter's packed profile
+	 * to a sink as soon as its line ends.
+	 * @param in the stream, which is read to its end but not closed.
+	 * @param sink the sink the profiles are passed to.
+	 * @return the number of voters read.
+	 * @throws IOException if the stream cannot be read or a line is not a valid voter.
+	 */
+	static long read(InputStream in, ProfileSink sink) throws IOException
+	{
+		Parser parser = new Parser(sink);
+		byte[] buffer = new byte[BUFFER_SIZE];
+
+		int n = in.read(buffer);
+
+		//ignore a byte order mark
+		int from = 0;
+		if(n >= 3 && buffer[0] == (byte) 0xEF && buffer[1] == (byte) 0xBB && buffer[2] == (byte) 0xBF)
+			from = 3;
+
+		while(n > 0)
+		{
+			parser.parse(buffer, from, n);
+
+			from = 0;
+			n = in.read(buffer);
+		}
+
+		//the last line may not end in a newline
+		parser.parse(new byte[] { '\n' }, 0, 1);
+
+		return parser.noVoters;
+	}
+
+	/**
+	 * Parses voters a byte at a time, so lines may span reads of the input.
+	 */
+	private static class Parser
+	{
+		private final ProfileSink sink;
+		/** The values of the current line read so far */
+		private final int[] values = new int[NO_COLUMNS];
+
+		private long noVoters;
+		private long line = 1;
+		private int column;
+		/** The current value and its number of digits so far */
+		private int value;
+		private int digits;
+		/** Whether the current value has been followed by spaces */
+		private boolean ended;
+		/** Whether the rest of the line is a header to be skipped */
+		private boolean skipping;
+
+		private Parser(ProfileSink sink)
+		{
+			this.sink = sink;
+		}
+
+		/**
+		 * Parses a range of bytes. The state is kept in locals while parsing
+		 * and stored back at the end, so lines may span calls.
+		 */
+		private void parse(byte[] buffer, int from, int to) throws IOException
+		{
+			int column = this.column;
+			int value = this.value;
+			int digits = this.digits;
+			boolean ended = this.ended;
+
+			for(int i=from; i<to; i++)
+			{
+				int c = buffer[i];
+
+				if(c >= '0' && c <= '9' && !skipping)
+				{
+					if(ended)
+						throw invalid(line, "missing comma");
+					if(column == NO_COLUMNS)
+						throw invalid(line, "too many columns");
+
+					value = value * 10 + (c - '0');
+					digits++;
+					if(value > 100)
+						throw invalid(line, "the " + COLUMNS[column] + " is out of range");
+				}
+				else if(skipping)
+				{
+					if(c == '\n')
+					{
+						skipping = false;
+						line++;
+					}
+				}
+				else if(c == ',' || c == '\n')
+				{
+					//blank lines are skipped
+					if(c == '\n' && column == 0 && digits == 0)
+					{
+						line++;
+						continue;
+					}
+
+					//store the value in its column
+					if(column == NO_COLUMNS)
+						throw invalid(line, "too many columns");
+					if(digits == 0)
+						throw invalid(line, "missing " + COLUMNS[column]);
+
+					values[column++] = value;
+					value = 0;
+					digits = 0;
+					ended = false;
+
+					if(c == '\n')
+					{
+						if(column != NO_COLUMNS)
+							throw invalid(line, "missing " + COLUMNS[column]);
+
+						sink.add(VoterProfile.pack(values[0], values[1], values[2], values[3]));
+						noVoters++;
+						column = 0;
+						line++;
+					}
+				}
+				else if(c == ' ' || c == '\t' || c == '\r')
+				{
+					ended = digits > 0;
+				}
+				else if(line == 1 && column == 0 && digits == 0 && startsHeader(c))
+				{
+					//the first line is a header
+					skipping = true;
+				}
+				else
+				{
+					throw invalid(line, "invalid character '" + (char) (c & 0xFF) + "'");
+				}
+			}
+
+			this.column = column;
+			this.value = value;
+			this.digits = digits;
+			this.ended = ended;
+		}
+	}
+
+	/**
+	 * Ranks each voter read into a ballot box, and adds its preferences to a
+	 * grid.
+	 */
+	private static class Ranking implements ProfileSink
+	{
+		private final Party[] parties;
+		private final long seed;
+		private final BallotBox ballots;
+		private final PreferenceGrid voters;
+
+		private BallotRanker ranker;
+		private long noVoters;
+
+		private Ranking(Party[] parties, long seed, BallotBox ballots, PreferenceGrid voters)
+		{
+			//fail on too many parties before any voter is read
+			this.ranker = new BallotRanker(parties, new SplittableRandom(Seeds.mix(seed, 0)));
+			this.parties = parties;
+			this.seed = seed;
+			this.ballots = ballots;
+			this.voters = voters;
+		}
+
+		@Override
+		public void add(int profile)
+		{
+			if(noVoters > 0 && noVoters % ElectorateFileCounter.CHUNK_SIZE == 0)
+				ranker = new BallotRanker(parties, new SplittableRandom(Seeds.mix(seed, noVoters / ElectorateFileCounter.CHUNK_SIZE)));
+
+			int socPref = VoterProfile.socialPreference(profile);
+			int econPref = VoterProfile.economicPreference(profile);
+			ballots.addBallot(ranker.rank(socPref, econPref, VoterProfile.preferenceRatio(profile), VoterProfile.competenceRatio(profile)), 1);
+			voters.add(socPref, econPref, 1);
+			noVoters++;
+		}
+	}
+
+	/**
+	 * Returns whether a line starting with a byte is a header: a letter, a
+	 * byte of a non-ASCII UTF-8 character, or a quote. Any other line, such
+	 * as one starting with a sign, is parsed as a voter.
+	 */
+	private static boolean startsHeader(int c)
+	{
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c < 0 || c == '"';
+	}
+
+	/**
+	 * Returns an exception describing an invalid line.
+	 */
+	private static IOException invalid(long line, String problem)
+	{
+		return new IOException("Invalid voter on line " + line + ": " + problem);
+	}
+
+	/**
+	 * Receives the packed profiles of the voters read.
+	 */
+	interface ProfileSink
+	{
+		/**
+		 * Receives the packed profile of a voter. The profile's values are in range.
+		 * @param profile the packed profile.
+		 * @throws IOException if the profile cannot be stored.
+		 */
+		void add(int profile) throws IOException;
+	}
+}
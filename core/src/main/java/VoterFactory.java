@@ -0,0 +1,521 @@
+
+import java.util.Spliterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+public class VoterFactory
+{
+	/** The number of voters generated from each random number generator in bulk generation */
+	static final int CHUNK_SIZE = 1 << 16;
+
+	/** The generator from which each thread's random number generator is split */
+	private static final SplittableRandom rootGen = new SplittableRandom();
+
+	/** Each thread's own random number generator, used by {@link #randomVoter()} */
+	private static final ThreadLocal<SplittableRandom> threadGen = new ThreadLocal<SplittableRandom>()
+	{
+		@Override
+		protected SplittableRandom initialValue()
+		{
+			synchronized(rootGen)
+			{
+				return rootGen.split();
+			}
+		}
+	};
+
+	/**
+	 * Prevent instances of this class from being created by making the
+	 * constructor private
+	 */
+	private VoterFactory() {}
+
+	/**
+	 * Returns a new randomized voter, using the calling thread's own random
+	 * number generator.
+	 * @return a new randomized voter.
+	 */
+	public static Voter randomVoter()
+	{
+		return randomVoter(threadGen.get());
+	}
+
+	/**
+	 * Returns a new randomized voter drawn from the given random number generator.
+	 * @param randGen the random number generator to draw from.
+	 * @return a new randomized voter.
+	 */
+	public static Voter randomVoter(SplittableRandom randGen)
+	{
+		return randomVoter(randGen, GaussianSampler.POLAR);
+	}
+
+	/**
+	 * Returns a new randomized voter drawn from the given random number
+	 * generator with the given normal sampler.
+	 * @param randGen the random number generator to draw from.
+	 * @param sampler the method used to sample the normal distribution.
+	 * @return a new randomized voter.
+	 */
+	public static Voter randomVoter(SplittableRandom randGen, GaussianSampler sampler)
+	{
+		return VoterProfile.toVoter(randomProfile(randGen, sampler));
+	}
+
+	/**
+	 * Fills an array with newly created randomized voters.
+	 * @param array the array to be filled.
+	 */
+	public static void fillVoterArray(Voter[] array)
+	{
+		SplittableRandom randGen = threadGen.get();
+		for(int i=0; i<array.length; i++)
+			array[i] = VoterFactory.randomVoter(randGen);
+	}
+
+	/**
+	 * Fills an array with newly created randomized voters. The same seed
+	 * always fills the array with the same voters.
+	 * @param array the array to be filled.
+	 * @param seed the seed of the random number generator.
+	 */
+	public static void fillVoterArray(Voter[] array, long seed)
+	{
+		SplittableRandom randGen = new SplittableRandom(seed);
+		for(int i=0; i<array.length; i++)
+			array[i] = VoterFactory.randomVoter(randGen);
+	}
+
+	/**
+	 * Generates a table of randomized voters using the polar normal sampler.
+	 * @param n the number of voters to generate.
+	 * @param seed the seed the voters are generated from.
+	 * @param parallelism the number of threads to generate the voters on.
+	 * @return a table of n randomized voters.
+	 * @see #generate(int, long, int, GaussianSampler)
+	 */
+	public static VoterTable generate(int n, long seed, int parallelism)
+	{
+		return generate(n, seed, parallelism, GaussianSampler.POLAR);
+	}
+
+	/**
+	 * Generates a table of randomized voters. The voters are generated in
+	 * chunks of {@value #CHUNK_SIZE}, each from its own random number
+	 * generator, so the same seed always gives the same table whatever the
+	 * parallelism.
+	 * @param n the number of voters to generate.
+	 * @param seed the seed the voters are generated from.
+	 * @param parallelism the number of threads to generate the voters on.
+	 * @param sampler the method used to sample the normal distribution.
+	 * @return a table of n randomized voters.
+	 * @throws IllegalArgumentException if n is negative or the parallelism is less than 1.
+	 */
+	public static VoterTable generate(int n, long seed, int parallelism, GaussianSampler sampler) throws IllegalArgumentException
+	{
+		if(n < 0)
+			throw new IllegalArgumentException("Negative number of voters: " + n);
+
+		VoterTable table = new VoterTable(n);
+		generate(table, n, seed, parallelism, sampler);
+
+		return table;
+	}
+
+	/**
+	 * Replaces the contents of a table with randomized voters, reusing its
+	 * storage. The table ends up holding the same voters as
+	 * {@link #generate(int, long, int, GaussianSampler)} would return for the
+	 * same arguments.
+	 * @param table the table to be refilled.
+	 * @param n the number of voters to generate.
+	 * @param seed the seed the voters are generated from.
+	 * @param parallelism the number of threads to generate the voters on.
+	 * @param sampler the method used to sample the normal distribution.
+	 * @throws IllegalArgumentException if n is negative or the parallelism is less than 1.
+	 */
+	public static void generate(VoterTable table, int n, long seed, int parallelism, GaussianSampler sampler) throws IllegalArgumentException
+	{
+		if(n < 0)
+			throw new IllegalArgumentException("Negative number of voters: " + n);
+		if(parallelism < 1)
+			throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+
+		table.setSize(n);
+
+		int noChunks = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		if(parallelism == 1 || noChunks <= 1)
+		{
+			for(int chunk=0; chunk<noChunks; chunk++)
+				fillChunk(table, seed, chunk, sampler);
+		}
+		else
+		{
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try
+			{
+				pool.invoke(new GenerationTask(table, seed, sampler, 0, noChunks));
+			}
+			finally
+			{
+				pool.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Generates an electorate of randomized voters, holding them as a
+	 * histogram of profiles rather than one by one. It holds the same voters
+	 * as {@link #generate(int, long, int, GaussianSampler)} with the same
+	 * arguments, and uses memory in proportion to the number of distinct
+	 * profiles rather than the number of voters.
+	 * @param n the number of voters to generate.
+	 * @param seed the seed the voters are generated from.
+	 * @param parallelism the number of threads to generate the voters on.
+	 * @param sampler the method used to sample the normal distribution.
+	 * @return an electorate of n randomized voters.
+	 * @throws IllegalArgumentException if n is negative or the parallelism is less than 1.
+	 */
+	public static Electorate generateElectorate(int n, long seed, int parallelism, GaussianSampler sampler) throws IllegalArgumentException
+	{
+		if(n < 0)
+			throw new IllegalArgumentException("Negative number of voters: " + n);
+		if(parallelism < 1)
+			throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+
+		int noChunks = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		if(parallelism == 1 || noChunks <= 1)
+		{
+			Electorate electorate = new Electorate();
+			for(int chunk=0; chunk<noChunks; chunk++)
+				fillChunk(electorate, n, seed, chunk, sampler);
+
+			return electorate;
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try
+		{
+			return pool.invoke(new ElectorateTask(n, seed, sampler, 0, noChunks));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Returns a spliterator over n randomized voters using the polar normal sampler.
+	 * @param n the number of voters to generate.
+	 * @param seed the seed the voters are generated from.
+	 * @return a spliterator over n randomized voters.
+	 * @see #spliterator(long, long, GaussianSampler)
+	 */
+	public static Spliterator<Voter> spliterator(long n, long seed)
+	{
+		return spliterator(n, seed, GaussianSampler.POLAR);
+	}
+
+	/**
+	 * Returns a spliterator over n randomized voters, generated as they are
+	 * consumed. It splits on chunk boundaries, so it yields the same voters
+	 * in the same order as {@link #generate(int, long, int, GaussianSampler)}
+	 * with the same seed, however it is split.
+	 * @param n the number of voters to generate.
+	 * @param seed the seed the voters are generated from.
+	 * @param sampler the method used to sample the normal distribution.
+	 * @return a spliterator over n randomized voters.
+	 * @throws IllegalArgumentException if n is negative.
+	 */
+	public static Spliterator<Voter> spliterator(long n, long seed, GaussianSampler sampler) throws IllegalArgumentException
+	{
+		if(n < 0)
+			throw new IllegalArgumentException("Negative number of voters: " + n);
+
+		return new VoterSpliterator(seed, sampler, 0, n);
+	}
+
+	/**
+	 * Fills one chunk of a table with randomized voters.
+	 */
+	private static void fillChunk(VoterTable table, long seed, int chunk, GaussianSampler sampler)
+	{
+		SplittableRandom randGen = new SplittableRandom(Seeds.mix(seed, chunk));
+
+		int from = chunk * CHUNK_SIZE;
+		int to = Math.min(from + CHUNK_SIZE, table.size());
+		for(int i=from; i<to; i++)
+			table.set(i, randomProfile(randGen, sampler));
+	}
+
+	/**
+	 * Adds one chunk of the first n randomized voters to an electorate.
+	 */
+	private static void fillChunk(Electorate electorate, int n, long seed, int chunk, GaussianSampler sampler)
+	{
+		SplittableRandom randGen = new SplittableRandom(Seeds.mix(seed, chunk));
+
+		int from = chunk * CHUNK_SIZE;
+		int to = Math.min(from + CHUNK_SIZE, n);
+		for(int i=from; i<to; i++)
+			electorate.addProfile(randomProfile(randGen, sampler), 1);
+	}
+
+	/**
+	 * Draws the packed profile of a randomized voter.
+	 */
+	private static int randomProfile(SplittableRandom randGen, GaussianSampler sampler)
+	{
+		return randomProfile(randGen, sampler, 0, 0);
+	}
+
+	/**
+	 * Draws the packed profile of a randomized voter from the usual
+	 * distribution with its preferences shifted. Preferences shifted out of
+	 * range are truncated to it.
+	 * @param randGen the random number generator to draw from.
+	 * @param sampler the method used to sample the normal distribution.
+	 * @param socShift the amount added to the mean social preference.
+	 * @param econShift the amount added to the mean economic preference.
+	 * @return the packed profile of a randomized voter.
+	 */
+	static int randomProfile(SplittableRandom randGen, GaussianSampler sampler, double socShift, double econShift)
+	{
+		int socPref  = discreteBivariateNormal(randGen, sampler, 30 + socShift, 10, 70 + socShift, 10, 0.5, 0, 100);
+
+		//the amount to shift the mean for economic preference based on social
+		//preference
+		double shiftValue = (socPref - 50 - socShift) * 4.0/5;
+		int econPref  = discreteNormal(randGen, sampler, 50 + econShift + shiftValue, 10, 0, 100);
+
+		int prefRatio = discreteNormal(randGen, sampler, 50, 16, 0, 100);
+		int compRatio = discreteNormal(randGen, sampler, 25, 12.5, 0, 100);
+
+		return VoterProfile.pack(socPref, econPref, prefRatio, compRatio);
+	}
+
+	/**
+	 * Samples a value from a normal distribution with the given mean and
+	 * standard deviation.
+	 * @param randGen the random number generator to draw from.
+	 * @param sampler the method used to sample the normal distribution.
+	 * @param mean the mean of the normal distribution to be sampled.
+	 * @param dev the standard deviation of the normal distribution to be sampled.
+	 * @return a normally distributed value with given mean and standard deviation.
+	 */
+	private static double normalDistribution(SplittableRandom randGen, GaussianSampler sampler,
+	                                         double mean, double dev)
+	{
+		return dev * sampler.next(randGen) + mean;
+	}
+
+	/**
+	 * Returns an integer sampled from a normal distribution with the given parameters
+	 * and truncates it to a range of values.
+	 * @param randGen the random number generator to draw from.
+	 * @param sampler the method used to sample the normal distribution.
+	 * @param mean the mean of the normal distribution to be sampled.
+	 * @param dev the standard deviation of the normal distribution to be sampled.
+	 * @param lowerBound The lowest value that can be returned, all lower values
+	 * will return this value.
+	 * @param upperBound The highest value that can be returned, all higher
+	 * values will return this value.
+	 * @return a normally distributed value with given mean and standard deviation.
+	 */
+	private static int discreteNormal(SplittableRandom randGen, GaussianSampler sampler,
+	                                  double mean, double dev,
+			                          int lowerBound, int upperBound)
+	{
+		double result = normalDistribution(randGen, sampler, mean, dev);
+
+		if(result < lowerBound) result = lowerBound;
+		if(result > upperBound) result = upperBound;
+
+		return (int) Math.round(result);
+	}
+
+	private static double bivariateNormalDistribution(SplittableRandom randGen, GaussianSampler sampler,
+	                                                  double mean1, double dev1,
+	                                                  double mean2, double dev2,
+	                                                  double mixFactor)
+	{
+		double random = randGen.nextDouble();
+
+		if(random < mixFactor)
+			return normalDistribution(randGen, sampler, mean1, dev1);
+		else
+			return normalDistribution(randGen, sampler, mean2, dev2);
+	}
+
+	private static int discreteBivariateNormal(SplittableRandom randGen, GaussianSampler sampler,
+	                                           double mean1, double dev1,
+	                                           double mean2, double dev2,
+	                                           double mixFactor, int lowerBound,
+	                                           int upperBound)
+	{
+		double result = bivariateNormalDistribution(randGen, sampler, mean1, dev1, mean2, dev2, mixFactor);
+
+		if(result < lowerBound) result = lowerBound;
+		if(result > upperBound) result = upperBound;
+
+		return (int) Math.round(result);
+	}
+
+	/**
+	 * Fills a range of chunks of a voter table, splitting the range in half
+	 * until a single chunk remains.
+	 */
+	private static class GenerationTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final VoterTable table;
+		private final long seed;
+		private final GaussianSampler sampler;
+		private final int fromChunk;
+		private final int toChunk;
+
+		GenerationTask(VoterTable table, long seed, GaussianSampler sampler, int fromChunk, int toChunk)
+		{
+			this.table = table;
+			this.seed = seed;
+			this.sampler = sampler;
+			this.fromChunk = fromChunk;
+			this.toChunk = toChunk;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if(toChunk - fromChunk <= 1)
+			{
+				if(fromChunk < toChunk)
+					fillChunk(table, seed, fromChunk, sampler);
+				return;
+			}
+
+			int middle = (fromChunk + toChunk) >>> 1;
+			invokeAll(new GenerationTask(table, seed, sampler, fromChunk, middle),
+			          new GenerationTask(table, seed, sampler, middle, toChunk));
+		}
+	}
+
+	/**
+	 * Generates a range of chunks of voters into an electorate, splitting the
+	 * range in half until a single chunk remains and merging the halves.
+	 */
+	private static class ElectorateTask extends RecursiveTask<Electorate>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int n;
+		private final long seed;
+		private final GaussianSampler sampler;
+		private final int fromChunk;
+		private final int toChunk;
+
+		ElectorateTask(int n, long seed, GaussianSampler sampler, int fromChunk, int toChunk)
+		{
+			this.n = n;
+			this.seed = seed;
+			this.sampler = sampler;
+			this.fromChunk = fromChunk;
+			this.toChunk = toChunk;
+		}
+
+		@Override
+		protected Electorate compute()
+		{
+			if(toChunk - fromChunk <= 1)
+			{
+				Electorate electorate = new Electorate();
+				if(fromChunk < toChunk)
+					fillChunk(electorate, n, seed, fromChunk, sampler);
+				return electorate;
+			}
+
+			int middle = (fromChunk + toChunk) >>> 1;
+			ElectorateTask left = new ElectorateTask(n, seed, sampler, fromChunk, middle);
+			ElectorateTask right = new ElectorateTask(n, seed, sampler, middle, toChunk);
+
+			left.fork();
+			Electorate electorate = right.compute();
+			electorate.addAll(left.join());
+
+			return electorate;
+		}
+	}
+
+	/**
+	 * A spliterator generating voters as they are consumed. Each chunk of
+	 * {@value VoterFactory#CHUNK_SIZE} voters is drawn from its own random number
+	 * generator, and splits only happen on chunk boundaries.
+	 */
+	private static class VoterSpliterator implements Spliterator<Voter>
+	{
+		private final long seed;
+		private final GaussianSampler sampler;
+		/** The index of the next voter to generate */
+		private long index;
+		/** One past the index of the last voter to generate */
+		private final long end;
+		/** The generator of the current chunk, or null at the start of a chunk */
+		private SplittableRandom randGen;
+
+		VoterSpliterator(long seed, GaussianSampler sampler, long index, long end)
+		{
+			this.seed = seed;
+			this.sampler = sampler;
+			this.index = index;
+			this.end = end;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Voter> action)
+		{
+			if(index >= end)
+				return false;
+
+			if(randGen == null || index % CHUNK_SIZE == 0)
+				randGen = new SplittableRandom(Seeds.mix(seed, index / CHUNK_SIZE));
+
+			index++;
+			action.accept(VoterProfile.toVoter(randomProfile(randGen, sampler)));
+			return true;
+		}
+
+		@Override
+		public Spliterator<Voter> trySplit()
+		{
+			//split at the chunk boundary closest to the middle of what is left
+			long middle = (index + end) >>> 1;
+			middle -= middle % CHUNK_SIZE;
+			if(middle <= index || middle >= end)
+				return null;
+
+			//the prefix carries on with the current chunk's generator
+			VoterSpliterator prefix = new VoterSpliterator(seed, sampler, index, middle);
+			prefix.randGen = randGen;
+
+			index = middle;
+			randGen = null;
+
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize()
+		{
+			return end - index;
+		}
+
+		@Override
+		public int characteristics()
+		{
+			return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+		}
+	}
+}
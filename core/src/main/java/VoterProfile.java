@@ -0,0 +1,93 @@
+/**
+ * Packs the four attributes of a voter into a single int. Each attribute is
+ * in the range 0-100 and takes 7 bits, so a profile always fits in the low 28
+ * bits and is never negative. Profiles sort by social preference, then
+ * economic preference, then preference ratio, then competence ratio.
+ */
+public final class VoterProfile
+{
+	/** The number of distinct profiles */
+	public static final int NO_PROFILES = 1 << 28;
+
+	/**
+	 * Prevent instances of this class from being created by making the
+	 * constructor private
+	 */
+	private VoterProfile() {}
+
+	/**
+	 * Packs the given preferences and ratios into a profile. The values are
+	 * not range checked.
+	 * @param socPref the voter's social preference.
+	 * @param econPref the voter's economic preference.
+	 * @param prefRatio the voter's preference ratio.
+	 * @param compRatio the voter's competence ratio.
+	 * @return the packed profile.
+	 */
+	public static int pack(int socPref, int econPref, int prefRatio, int compRatio)
+	{
+		return socPref << 21 | econPref << 14 | prefRatio << 7 | compRatio;
+	}
+
+	/**
+	 * Returns the packed profile of a voter.
+	 * @param v the voter.
+	 * @return the packed profile of the voter.
+	 */
+	public static int of(Voter v)
+	{
+		return pack(v.getSocialPreference(), v.getEconomicPreference(),
+		            v.getPreferenceRatio(), v.getCompetenceRatio());
+	}
+
+	/**
+	 * Returns the social preference stored in a profile.
+	 * @param profile the packed profile.
+	 * @return the social preference stored in the profile.
+	 */
+	public static int socialPreference(int profile)
+	{
+		return profile >>> 21;
+	}
+
+	/**
+	 * Returns the economic preference stored in a profile.
+	 * @param profile the packed profile.
+	 * @return the economic preference stored in the profile.
+	 */
+	public static int economicPreference(int profile)
+	{
+		return profile >>> 14 & 0x7F;
+	}
+
+	/**
+	 * Returns the preference ratio stored in a profile.
+	 * @param profile the packed profile.
+	 * @return the preference ratio stored in the profile.
+	 */
+	public static int preferenceRatio(int profile)
+	{
+		return profile >>> 7 & 0x7F;
+	}
+
+	/**
+	 * Returns the competence ratio stored in a profile.
+	 * @param profile the packed profile.
+	 * @return the competence ratio stored in the profile.
+	 */
+	public static int competenceRatio(int profile)
+	{
+		return profile & 0x7F;
+	}
+
+	/**
+	 * Returns a new voter with the attributes stored in a profile.
+	 * @param profile the packed profile.
+	 * @return a new voter with the attributes stored in the profile.
+	 */
+	public static Voter toVoter(int profile)
+	{
+		return new Voter(socialPreference(profile), economicPreference(profile),
+		                 preferenceRatio(profile), competenceRatio(profile));
+	}
+}
@@ -0,0 +1,302 @@
+
+import java.util.Arrays;
+
+/**
+ * A columnar store of voters. Each of the four voter attributes is kept in its
+ * own primitive array, so no Voter objects are held and scans over a single
+ * attribute are linear passes over contiguous memory.
+ */
+public class VoterTable
+{
+	/** The default capacity of a new table */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	//The voters' attributes, one column per attribute. All values are in the
+	//range 0-100, so they fit in a byte each.
+	private byte[] socPref;
+	private byte[] econPref;
+	private byte[] prefRatio;
+	private byte[] compRatio;
+
+	/** The number of voters currently stored in the table */
+	private int size;
+
+	/**
+	 * Constructs a new, empty voter table.
+	 */
+	public VoterTable()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new, empty voter table able to hold the given number of
+	 * voters before having to grow.
+	 * @param initialCapacity the number of voters to allocate space for.
+	 * @throws IllegalArgumentException if the capacity is negative.
+	 */
+	public VoterTable(int initialCapacity) throws IllegalArgumentException
+	{
+		if(initialCapacity < 0)
+			throw new IllegalArgumentException("Negative capacity: " + initialCapacity);
+
+		socPref   = new byte[initialCapacity];
+		econPref  = new byte[initialCapacity];
+		prefRatio = new byte[initialCapacity];
+		compRatio = new byte[initialCapacity];
+	}
+
+	/**
+	 * Adds a voter to the table.
+	 * @param v the voter to be added.
+	 */
+	public void add(Voter v)
+	{
+		add(v.getSocialPreference(), v.getEconomicPreference(),
+		    v.getPreferenceRatio(), v.getCompetenceRatio());
+	}
+
+	/**
+	 * Adds a voter with the given preferences and ratios to the table.
+	 * @param socPref the voter's social preference.
+	 * @param econPref the voter's economic preference.
+	 * @param prefRatio the voter's preference ratio.
+	 * @param compRatio the voter's competence ratio.
+	 * @throws IllegalArgumentException if any of the values are out of range.
+	 */
+	public void add(int socPref, int econPref, int prefRatio, int compRatio) throws IllegalArgumentException
+	{
+		//ensure everything is in range or throw an exception
+		if(socPref   < 0 || socPref   > 100)
+			throw new IllegalArgumentException("The social preference is out of range");
+		if(econPref  < 0 || econPref  > 100)
+			throw new IllegalArgumentException("The economic preference is out of range");
+		if(prefRatio < 0 || prefRatio > 100)
+			throw new IllegalArgumentException("The preference ratio is out of range");
+		if(compRatio < 0 || compRatio > 100)
+			throw new IllegalArgumentException("The competence ratio is out of range");
+
+		ensureCapacity(size + 1);
+
+		this.socPref[size]   = (byte) socPref;
+		this.econPref[size]  = (byte) econPref;
+		this.prefRatio[size] = (byte) prefRatio;
+		this.compRatio[size] = (byte) compRatio;
+		size++;
+	}
+
+	/**
+	 * Adds all the voters in another table to this one.
+	 * @param other the table whose voters are to be added.
+	 */
+	public void addAll(VoterTable other)
+	{
+		int otherSize = other.size;
+		ensureCapacity(size + otherSize);
+
+		System.arraycopy(other.socPref,   0, socPref,   size, otherSize);
+		System.arraycopy(other.econPref,  0, econPref,  size, otherSize);
+		System.arraycopy(other.prefRatio, 0, prefRatio, size, otherSize);
+		System.arraycopy(other.compRatio, 0, compRatio, size, otherSize);
+		size += otherSize;
+	}
+
+	/**
+	 * Ensures the table can hold at least the given number of voters without
+	 * having to grow.
+	 * @param minCapacity the desired minimum capacity.
+	 */
+	public void ensureCapacity(int minCapacity)
+	{
+		if(minCapacity < 0)
+			throw new OutOfMemoryError("Too many voters for a single table");
+
+		int capacity = socPref.length;
+		if(minCapacity <= capacity)
+			return;
+
+		//grow by half again, or to the requested size if that is larger
+		int newCapacity = capacity + (capacity >> 1);
+		if(newCapacity < minCapacity || newCapacity < 0)
+			newCapacity = minCapacity;
+
+		socPref   = Arrays.copyOf(socPref,   newCapacity);
+		econPref  = Arrays.copyOf(econPref,  newCapacity);
+		prefRatio = Arrays.copyOf(prefRatio, newCapacity);
+		compRatio = Arrays.copyOf(compRatio, newCapacity);
+	}
+
+	/**
+	 * Sets the number of voters in the table, growing it if necessary. Rows
+	 * added this way must be set before they are read.
+	 * @param newSize the new number of voters.
+	 */
+	void setSize(int newSize)
+	{
+		ensureCapacity(newSize);
+		size = newSize;
+	}
+
+	/**
+	 * Overwrites the voter at the given row with a packed profile. The
+	 * profile's values are not range checked.
+	 * @param row the row of the voter.
+	 * @param profile the packed profile of the voter.
+	 */
+	void set(int row, int profile)
+	{
+		socPref[row]   = (byte) VoterProfile.socialPreference(profile);
+		econPref[row]  = (byte) VoterProfile.economicPreference(profile);
+		prefRatio[row] = (byte) VoterProfile.preferenceRatio(profile);
+		compRatio[row] = (byte) VoterProfile.competenceRatio(profile);
+	}
+
+	/**
+	 * Returns a 64 bit hash of the voters in the table, in order. Tables
+	 * holding the same voters in the same order have the same fingerprint.
+	 * @return the fingerprint of the voters.
+	 */
+	long fingerprint()
+	{
+		long hash = size;
+		for(int i=0; i<size; i++)
+			hash = Long.rotateLeft(hash, 23) * 0x9E3779B97F4A7C15L + getProfile(i);
+
+		return Seeds.mix(hash, size);
+	}
+
+	/**
+	 * Returns the number of voters in the table.
+	 * @return the number of voters in the table.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the social preference of the voter at the given row.
+	 * @param row the row of the voter.
+	 * @return the social preference of the voter at the given row.
+	 */
+	public int getSocialPreference(int row)
+	{
+		return socPref[checkRow(row)];
+	}
+
+	/**
+	 * Returns the economic preference of the voter at the given row.
+	 * @param row the row of the voter.
+	 * @return the economic preference of the voter at the given row.
+	 */
+	public int getEconomicPreference(int row)
+	{
+		return econPref[checkRow(row)];
+	}
+
+	/**
+	 * Returns the preference ratio of the voter at the given row.
+	 * @param row the row of the voter.
+	 * @return the preference ratio of the voter at the given row.
+	 */
+	public int getPreferenceRatio(int row)
+	{
+		return prefRatio[checkRow(row)];
+	}
+
+	/**
+	 * Returns the competence ratio of the voter at the given row.
+	 * @param row the row of the voter.
+	 * @return the competence ratio of the voter at the given row.
+	 */
+	public int getCompetenceRatio(int row)
+	{
+		return compRatio[checkRow(row)];
+	}
+
+	/**
+	 * Returns the packed profile of the voter at the given row.
+	 * @param row the row of the voter.
+	 * @return the packed profile of the voter at the given row.
+	 * @see VoterProfile
+	 */
+	public int getProfile(int row)
+	{
+		checkRow(row);
+		return VoterProfile.pack(socPref[row], econPref[row], prefRatio[row], compRatio[row]);
+	}
+
+	/**
+	 * Returns a new voter object with the attributes of the voter at the given row.
+	 * @param row the row of the voter.
+	 * @return a new voter object with the attributes of the voter at the given row.
+	 */
+	public Voter getVoter(int row)
+	{
+		checkRow(row);
+		return new Voter(socPref[row], econPref[row], prefRatio[row], compRatio[row]);
+	}
+
+	/**
+	 * Returns the sum of the social preferences of all voters in the table.
+	 * @return the sum of the social preferences of all voters in the table.
+	 */
+	public long sumSocialPreference()
+	{
+		return sum(socPref, size);
+	}
+
+	/**
+	 * Returns the sum of the economic preferences of all voters in the table.
+	 * @return the sum of the economic preferences of all voters in the table.
+	 */
+	public long sumEconomicPreference()
+	{
+		return sum(econPref, size);
+	}
+
+	/**
+	 * Returns the sum of the euclidian preference distances of all voters in
+	 * the table to the provided party.
+	 * @param p the party from which the distances are calculated.
+	 * @return the sum of the distances of all voters in the table to the party.
+	 */
+	public double sumDistanceFromParty(Party p)
+	{
+		int socPol  = p.getSocialPolicy();
+		int econPol = p.getEconomicPolicy();
+
+		double sum = 0;
+		for(int i=0; i<size; i++)
+		{
+			int socDis  = socPref[i] - socPol;
+			int econDis = econPref[i] - econPol;
+			sum += Math.sqrt(socDis*socDis + econDis*econDis);
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Sums the first n values of a column.
+	 */
+	private static long sum(byte[] column, int n)
+	{
+		long sum = 0;
+		for(int i=0; i<n; i++)
+			sum += column[i];
+
+		return sum;
+	}
+
+	/**
+	 * Checks that a row index refers to a voter in the table.
+	 */
+	private int checkRow(int row)
+	{
+		if(row < 0 || row >= size)
+			throw new IndexOutOfBoundsException("Row: " + row + ", size: " + size);
+
+		return row;
+	}
+}
@@ -0,0 +1,50 @@
+
+import java.util.SplittableRandom;
+
+/**
+ * Counts the ballots of a voter table in fixed size chunks of rows, ranking
+ * every voter individually.
+ */
+class VoterTableCounter implements ChunkCounter
+{
+	/** The number of voters in each chunk */
+	static final int CHUNK_SIZE = 1 << 14;
+
+	private final VoterTable voters;
+	private final Party[] parties;
+	private final long seed;
+
+	/**
+	 * Constructs a counter for the given voters and parties.
+	 * @param voters the voters whose ballots are counted.
+	 * @param parties the parties being ranked.
+	 * @param seed the seed from which each chunk's random number generator is derived.
+	 */
+	VoterTableCounter(VoterTable voters, Party[] parties, long seed)
+	{
+		this.voters = voters;
+		this.parties = parties;
+		this.seed = seed;
+	}
+
+	@Override
+	public int noChunks()
+	{
+		return (voters.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+	}
+
+	@Override
+	public void count(int chunk, BallotSink sink)
+	{
+		BallotRanker ranker = new BallotRanker(parties, new SplittableRandom(Seeds.mix(seed, chunk)));
+
+		int from = chunk * CHUNK_SIZE;
+		int to = Math.min(from + CHUNK_SIZE, voters.size());
+		for(int i=from; i<to; i++)
+		{
+			sink.addBallot(ranker.rank(voters.getSocialPreference(i), voters.getEconomicPreference(i),
+			                           voters.getPreferenceRatio(i), voters.getCompetenceRatio(i)), 1);
+		}
+
+	}
+}
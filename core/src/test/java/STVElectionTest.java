@@ -0,0 +1,259 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Checks the counts of STV elections, which move buckets of identical
+ * ballots between piles, against a count which transfers every voter on
+ * their own.
+ */
+public class STVElectionTest
+{
+	/** The tolerance for votes summed in a different order, per voter */
+	private static final double EPSILON = 1e-9;
+
+	@Test
+	public void matchesPerVoterCountOnRandomBallots()
+	{
+		Random randGen = new Random(1);
+		for(int t=0; t<300; t++)
+		{
+			int noParties = 2 + randGen.nextInt(6);
+			int noSeats = 1 + randGen.nextInt(noParties);
+
+			Party[] parties = new Party[noParties];
+			for(int p=0; p<noParties; p++)
+				parties[p] = new Party("P" + p, 50, 50, 50);
+
+			//distinct ballots are drawn from a few popular orders, so some
+			//parties reach the quota and pass on a surplus
+			BallotBox ballots = new BallotBox(noParties);
+			int[][] popular = new int[3][];
+			for(int i=0; i<popular.length; i++)
+				popular[i] = randomRanking(randGen, noParties);
+			//and some elections have so few voters per ballot that ties are common
+			int maxCount = t % 3 == 0 ? 2 : 50;
+			int noBallots = 1 + randGen.nextInt(60);
+			for(int b=0; b<noBallots; b++)
+			{
+				int[] ranking = randGen.nextBoolean() ? popular[randGen.nextInt(popular.length)].clone() : randomRanking(randGen, noParties);
+				ballots.addBallot(ranking, 1 + randGen.nextInt(maxCount));
+			}
+
+			STVElection election = new STVElection(noSeats);
+			election.addParties(parties);
+			election.shareBallots(ballots, parties);
+			election.run();
+
+			checkCount(election, parties, ballots, noSeats);
+		}
+	}
+
+	@Test
+	public void singleSeatIsAnInstantRunoff()
+	{
+		Party a = new Party("A", 50, 50, 50);
+		Party b = new Party("B", 50, 50, 50);
+		Party c = new Party("C", 50, 50, 50);
+		Party[] parties = { a, b, c };
+
+		//A leads on first preferences, but C is excluded and its voters prefer B
+		BallotBox ballots = new BallotBox(3);
+		ballots.addBallot(new int[] { 0, 1, 2 }, 40);
+		ballots.addBallot(new int[] { 1, 0, 2 }, 35);
+		ballots.addBallot(new int[] { 2, 1, 0 }, 25);
+
+		STVElection election = new STVElection();
+		election.addParties(parties);
+		election.shareBallots(ballots, parties);
+		election.run();
+
+		assertEquals(a, election.results().get(0).getParty());
+		assertEquals(1, election.electedParties().size());
+		assertEquals(b, election.electedParties().get(0));
+		assertEquals(2, election.noRounds());
+	}
+
+	@Test
+	public void tiesAreBrokenByFirstPreferenceResults()
+	{
+		Party a = new Party("A", 50, 50, 50);
+		Party b = new Party("B", 50, 50, 50);
+		Party c = new Party("C", 50, 50, 50);
+		Party[] parties = { a, b, c };
+
+		//B and C tie, but B is ranked above C in the first preference
+		//results by its second preferences, so C is excluded and A elected
+		BallotBox ballots = new BallotBox(3);
+		ballots.addBallot(new int[] { 0, 1, 2 }, 40);
+		ballots.addBallot(new int[] { 1, 2, 0 }, 30);
+		ballots.addBallot(new int[] { 2, 0, 1 }, 30);
+
+		STVElection election = new STVElection();
+		election.addParties(parties);
+		election.shareBallots(ballots, parties);
+		election.run();
+
+		assertEquals(b, election.results().get(1).getParty());
+		assertEquals(a, election.electedParties().get(0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNoSeats()
+	{
+		new STVElection(0);
+	}
+
+	/**
+	 * Counts the ballots again one voter at a time and compares every round,
+	 * and the parties elected, with the election's count.
+	 */
+	private static void checkCount(STVElection election, Party[] parties, BallotBox ballots, int noSeats)
+	{
+		int n = parties.length;
+
+		//expand the buckets into voters
+		List<int[]> rankings = new ArrayList<>();
+		for(int b=0; b<ballots.noBallots(); b++)
+		{
+			int[] ranking = new int[n];
+			for(int r=0; r<n; r++)
+				ranking[r] = ballots.getParty(b, r);
+			for(int v=0; v<ballots.getCount(b); v++)
+				rankings.add(ranking);
+		}
+
+		int noVoters = rankings.size();
+		double[] weight = new double[noVoters];
+		int[] cursor = new int[noVoters];
+		Arrays.fill(weight, 1);
+
+		//the first preferences must match, and break ties between parties
+		int[] firstVotes = new int[n];
+		for(int[] ranking : rankings)
+			firstVotes[ranking[0]]++;
+		int[] firstRank = new int[n];
+		for(int r=0; r<n; r++)
+		{
+			PartyWithVotes p = election.results().get(r);
+			int id = election.partyId(p.getParty());
+			assertEquals(firstVotes[id], p.getVotes(1));
+			firstRank[id] = r;
+		}
+
+		double quota = Math.floor((double) noVoters / (noSeats + 1)) + 1;
+		boolean[] standing = new boolean[n];
+		Arrays.fill(standing, true);
+		int noStanding = n;
+		Set<Party> elected = new HashSet<>();
+		int round = 0;
+
+		while(elected.size() < noSeats && noStanding > 0)
+		{
+			//every voter counts for their current choice, unless exhausted
+			double[] votes = new double[n];
+			for(int v=0; v<noVoters; v++)
+				if(cursor[v] < n) votes[rankings.get(v)[cursor[v]]] += weight[v];
+
+			round++;
+			List<PartyWithDoubleValue> roundResults = election.roundResults(round);
+			assertEquals(noStanding, roundResults.size());
+			for(PartyWithDoubleValue p : roundResults)
+			{
+				int id = election.partyId(p.getParty());
+				assertTrue(standing[id]);
+				assertEquals(votes[id], p.getValue(), EPSILON * noVoters);
+			}
+
+			if(elected.size() + noStanding <= noSeats)
+			{
+				for(int p=0; p<n; p++)
+					if(standing[p]) elected.add(parties[p]);
+				break;
+			}
+
+			int top = -1, bottom = -1;
+			for(int p=0; p<n; p++)
+			{
+				if(!standing[p])
+					continue;
+
+				if(top < 0 || votes[p] > votes[top] || (votes[p] == votes[top] && firstRank[p] < firstRank[top]))
+					top = p;
+				if(bottom < 0 || votes[p] < votes[bottom] || (votes[p] == votes[bottom] && firstRank[p] > firstRank[bottom]))
+					bottom = p;
+			}
+
+			int moved;
+			double transferValue;
+			if(votes[top] >= quota)
+			{
+				moved = top;
+				transferValue = (votes[top] - quota) / votes[top];
+				elected.add(parties[top]);
+			}
+			else
+			{
+				moved = bottom;
+				transferValue = 1;
+			}
+
+			standing[moved] = false;
+			noStanding--;
+
+			//each voter counting for the party moves on to their next choice
+			//still standing, carrying their share of any surplus
+			for(int v=0; v<noVoters; v++)
+			{
+				int[] ranking = rankings.get(v);
+				if(cursor[v] == n || ranking[cursor[v]] != moved)
+					continue;
+
+				weight[v] *= transferValue;
+				do
+					cursor[v]++;
+				while(cursor[v] < n && !standing[ranking[cursor[v]]]);
+			}
+		}
+
+		assertEquals(round, election.noRounds());
+		assertEquals(elected, new HashSet<>(election.electedParties()));
+		assertEquals(Math.min(noSeats, n), elected.size());
+
+		//the seats are shared by the parties elected
+		double seats = 0;
+		for(PartyWithDoubleValue p : election.seatResults())
+		{
+			assertEquals(elected.contains(p.getParty()) ? 100.0 / noSeats : 0, p.getValue(), EPSILON);
+			seats += p.getValue();
+		}
+		assertEquals(100, seats, EPSILON);
+	}
+
+	/**
+	 * Returns a random order of the parties.
+	 */
+	private static int[] randomRanking(Random randGen, int noParties)
+	{
+		int[] ranking = new int[noParties];
+		for(int i=0; i<noParties; i++)
+			ranking[i] = i;
+		for(int i=noParties-1; i>0; i--)
+		{
+			int j = randGen.nextInt(i + 1);
+			int tmp = ranking[i];
+			ranking[i] = ranking[j];
+			ranking[j] = tmp;
+		}
+
+		return ranking;
+	}
+}
@@ -0,0 +1,198 @@
+/**
+ * The aggregated results of a batch of election replications: the
+ * distribution of each party's share of the votes and seats, and of the
+ * distortion between them. Replications are summarized as they complete, so
+ * the memory used does not grow with their number.
+ *
+ * Distortion is measured with the Gallagher least squares index, the square
+ * root of half the sum of the squared differences between each party's
+ * percentage of first preference votes and its percentage of seats.
+ */
+public class BatchResults
+{
+	/** The number of histogram bins used for each percentage distribution */
+	private static final int PERCENTAGE_BINS = 1000;
+
+	/** The parties participating in the elections */
+	private final Party[] parties;
+	/** The distribution of each party's percentage of first preference votes, by party index */
+	private final StreamingStats[] voteShares;
+	/** The distribution of each party's percentage of seats, by party index */
+	private final StreamingStats[] seatShares;
+	/** The distribution of the distortion of each election */
+	private final StreamingStats distortion;
+
+	/** The number of threads the batch was run on */
+	private int parallelism = 1;
+	/** The time taken to run the batch */
+	private long elapsedNanos;
+
+	/**
+	 * Constructs empty results for elections between the given parties.
+	 * @param parties the parties participating in the elections.
+	 */
+	BatchResults(Party[] parties)
+	{
+		this.parties = parties;
+		this.voteShares = new StreamingStats[parties.length];
+		this.seatShares = new StreamingStats[parties.length];
+		for(int i=0; i<parties.length; i++)
+		{
+			voteShares[i] = new StreamingStats(0, 100, PERCENTAGE_BINS);
+			seatShares[i] = new StreamingStats(0, 100, PERCENTAGE_BINS);
+		}
+		this.distortion = new StreamingStats(0, 100, PERCENTAGE_BINS);
+	}
+
+	/**
+	 * Adds the results of a completed election. Parties missing from the
+	 * election's seat results are counted as having no seats.
+	 * @param e the completed election.
+	 */
+	void add(Election e)
+	{
+		double[] votes = new double[parties.length];
+		for(PartyWithVotes p : e.firstRoundResults())
+			votes[indexOf(p.getParty())] = 100.0 * p.getVotes(1) / e.noVoters();
+
+		double[] seats = new double[parties.length];
+		for(PartyWithDoubleValue p : e.seatResults())
+			seats[indexOf(p.getParty())] = p.getValue();
+
+		double sumOfSquares = 0;
+		for(int i=0; i<parties.length; i++)
+		{
+			voteShares[i].add(votes[i]);
+			seatShares[i].add(seats[i]);
+			sumOfSquares += (votes[i] - seats[i]) * (votes[i] - seats[i]);
+		}
+
+		distortion.add(Math.sqrt(sumOfSquares / 2));
+	}
+
+	/**
+	 * Adds all the replications summarized by other results to these.
+	 * @param other the results to be merged into these.
+	 */
+	void merge(BatchResults other)
+	{
+		for(int i=0; i<parties.length; i++)
+		{
+			voteShares[i].merge(other.voteShares[i]);
+			seatShares[i].merge(other.seatShares[i]);
+		}
+		distortion.merge(other.distortion);
+	}
+
+	/**
+	 * Records how long the batch took to run, and on how many threads.
+	 */
+	void setTiming(long elapsedNanos, int parallelism)
+	{
+		this.elapsedNanos = elapsedNanos;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Returns the distribution of a party's percentage of first preference votes.
+	 * @param p the party.
+	 * @return the distribution of the party's percentage of first preference votes.
+	 * @throws IllegalArgumentException if the party did not participate.
+	 */
+	public StreamingStats voteShare(Party p) throws IllegalArgumentException
+	{
+		return voteShares[indexOf(p)];
+	}
+
+	/**
+	 * Returns the distribution of a party's percentage of seats.
+	 * @param p the party.
+	 * @return the distribution of the party's percentage of seats.
+	 * @throws IllegalArgumentException if the party did not participate.
+	 */
+	public StreamingStats seatShare(Party p) throws IllegalArgumentException
+	{
+		return seatShares[indexOf(p)];
+	}
+
+	/**
+	 * Returns the distribution of the distortion between votes and seats.
+	 * @return the distribution of the distortion between votes and seats.
+	 */
+	public StreamingStats distortion()
+	{
+		return distortion;
+	}
+
+	/**
+	 * Returns the number of replications summarized.
+	 * @return the number of replications summarized.
+	 */
+	public long noReplications()
+	{
+		return distortion.count();
+	}
+
+	/**
+	 * Returns the time taken to run the batch, in nanoseconds.
+	 * @return the time taken to run the batch, in nanoseconds.
+	 */
+	public long elapsedNanos()
+	{
+		return elapsedNanos;
+	}
+
+	/**
+	 * Returns the number of replications run per second.
+	 * @return the number of replications run per second.
+	 */
+	public double replicationsPerSecond()
+	{
+		return noReplications() * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * Returns the number of replications run per second on each thread.
+	 * @return the number of replications run per second on each thread.
+	 */
+	public double replicationsPerSecondPerCore()
+	{
+		return replicationsPerSecond() / parallelism;
+	}
+
+	/**
+	 * Returns the index of a party.
+	 */
+	private int indexOf(Party p)
+	{
+		for(int i=0; i<parties.length; i++)
+			if(parties[i] == p) return i;
+
+		throw new IllegalArgumentException("Unknown party: " + p.getName());
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder buffer = new StringBuilder();
+
+		buffer.append(String.format("Batch of %d replications%n", noReplications()));
+		buffer.append("     Party     | Votes (mean +/- 95%) | Seats (mean +/- 95%) | Seats 5%-95%\n"
+		            + "---------------+----------------------+----------------------+--------------\n");
+
+		for(int i=0; i<parties.length; i++)
+		{
+			buffer.append(String.format("%-15s| %6.2f +/- %-9.3f | %6.2f +/- %-9.3f | %5.1f - %5.1f%n", parties[i].getName(),
+			              voteShares[i].mean(), voteShares[i].confidenceHalfWidth(),
+			              seatShares[i].mean(), seatShares[i].confidenceHalfWidth(),
+			              seatShares[i].quantile(0.05), seatShares[i].quantile(0.95)));
+		}
+
+		buffer.append(String.format("%nDistortion: %.3f +/- %.3f (median %.1f)%n",
+		              distortion.mean(), distortion.confidenceHalfWidth(), distortion.quantile(0.5)));
+		buffer.append(String.format("Throughput: %.1f replications/s, %.1f per core%n",
+		              replicationsPerSecond(), replicationsPerSecondPerCore()));
+
+		return buffer.toString();
+	}
+}
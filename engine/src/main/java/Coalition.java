@@ -0,0 +1,81 @@
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A governing coalition formed by a party with the partners it prefers, as
+ * found by a {@link CoalitionSolver}.
+ */
+public class Coalition
+{
+	/** The party that formed the coalition */
+	private final Party formateur;
+	/** The other parties in the coalition */
+	private final ImmutableList<Party> partners;
+	/** The percentage of seats held by the coalition */
+	private final double seats;
+	/** The formateur's cost of governing with the partners, lower is preferred */
+	private final double cost;
+
+	/**
+	 * Constructs a coalition.
+	 * @param formateur the party that formed the coalition.
+	 * @param partners the other parties in the coalition.
+	 * @param seats the percentage of seats held by the coalition.
+	 * @param cost the formateur's cost of governing with the partners.
+	 */
+	Coalition(Party formateur, ImmutableList<Party> partners, double seats, double cost)
+	{
+		this.formateur = formateur;
+		this.partners = partners;
+		this.seats = seats;
+		this.cost = cost;
+	}
+
+	/**
+	 * Returns the party that formed the coalition.
+	 * @return the party that formed the coalition.
+	 */
+	public Party getFormateur()
+	{
+		return formateur;
+	}
+
+	/**
+	 * Returns the other parties in the coalition, which is empty if the
+	 * formateur holds a majority on its own.
+	 * @return the other parties in the coalition.
+	 */
+	public ImmutableList<Party> getPartners()
+	{
+		return partners;
+	}
+
+	/**
+	 * Returns the percentage of seats held by the coalition.
+	 * @return the percentage of seats held by the coalition.
+	 */
+	public double getSeats()
+	{
+		return seats;
+	}
+
+	/**
+	 * Returns the formateur's cost of governing with its partners. Of the
+	 * coalitions with the fewest partners, the formateur prefers the one with
+	 * the lowest cost.
+	 * @return the cost of the coalition.
+	 */
+	public double getCost()
+	{
+		return cost;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder buffer = new StringBuilder(formateur.getName());
+		for(Party p : partners)
+			buffer.append(" + ").append(p.getName());
+
+		return buffer.append(String.format(": %.2f%% of seats", seats)).toString();
+	}
+}
@@ -0,0 +1,330 @@
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Finds the coalitions parties form when none of them holds a majority of
+ * the seats on its own. A party forming a coalition prefers, in order:
+ *
+ * <ul>
+ * <li>the smallest number of partners that gives it a majority;</li>
+ * <li>smaller partners, to keep its influence over policy;</li>
+ * <li>partners close to it in social and economic policy;</li>
+ * <li>partners with a high perceived competence.</li>
+ * </ul>
+ *
+ * The first rule is absolute. The other three are weighed together: each
+ * partner costs the formateur its percentage of seats, its policy distance
+ * from the formateur and its lack of competence (100 minus its competence),
+ * each multiplied by a weight, and the formateur picks the cheapest of the
+ * coalitions with the fewest partners.
+ *
+ * The coalitions are found by a branch and bound search over the subsets of
+ * partners, held as bitmasks. Partners are tried in increasing order of cost,
+ * and a branch is abandoned as soon as it cannot beat the best coalition
+ * found so far or cannot reach a majority, so the search visits a tiny
+ * fraction of the 2^n subsets. The policy distances between every pair of
+ * parties are computed once and shared by all the searches.
+ */
+public class CoalitionSolver
+{
+	/** The largest number of parties a solver can hold, one per bit of a mask */
+	public static final int MAX_PARTIES = 64;
+
+	/** The parties, in descending order of seats */
+	private final Party[] parties;
+	/** The percentage of seats held by each party */
+	private final double[] seats;
+	/** The policy distance between each pair of parties */
+	private final double[][] distances;
+
+	private double majority = 50;
+	private double seatWeight = 1;
+	private double distanceWeight = 1;
+	private double competenceWeight = 1;
+
+	/** The preferred coalition of each party, found when first needed, or null */
+	private final Coalition[] coalitions;
+	/** Whether the preferred coalition of each party has been searched for */
+	private final boolean[] solved;
+
+	//The state of the current search
+	private int[] candidates;
+	private double[] candidateCosts;
+	private double[] candidateSeats;
+	/** The sum of the costs of the candidates before each index */
+	private double[] costPrefix;
+	/** The sum of the m largest seats among the candidates from index i on, at [i][m] */
+	private double[][] topSeats;
+	private long bestMask;
+	private double bestCost;
+	private double bestSeats;
+
+	/**
+	 * Constructs a solver for the parliament described by the results of an election.
+	 * @param seatResults the parties and their percentage of seats.
+	 * @throws IllegalArgumentException if there are more than {@value #MAX_PARTIES} parties.
+	 */
+	public CoalitionSolver(List<PartyWithDoubleValue> seatResults) throws IllegalArgumentException
+	{
+		if(seatResults.size() > MAX_PARTIES)
+			throw new IllegalArgumentException("Too many parties: " + seatResults.size());
+
+		List<PartyWithDoubleValue> sorted = new ArrayList<>(seatResults);
+		Collections.sort(sorted, Collections.reverseOrder());
+
+		int n = sorted.size();
+		parties = new Party[n];
+		seats = new double[n];
+		for(int i=0; i<n; i++)
+		{
+			parties[i] = sorted.get(i).getParty();
+			seats[i] = sorted.get(i).getValue();
+		}
+
+		distances = new double[n][n];
+		for(int i=0; i<n; i++)
+		{
+			for(int j=0; j<i; j++)
+			{
+				int socDis = parties[i].getSocialPolicy() - parties[j].getSocialPolicy();
+				int econDis = parties[i].getEconomicPolicy() - parties[j].getEconomicPolicy();
+				distances[i][j] = distances[j][i] = Math.sqrt(socDis*socDis + econDis*econDis);
+			}
+		}
+
+		coalitions = new Coalition[n];
+		solved = new boolean[n];
+	}
+
+	/**
+	 * Sets the percentage of seats a coalition must hold more than to govern.
+	 * @param majority the percentage of seats, 50 by default.
+	 */
+	public void setMajority(double majority)
+	{
+		this.majority = majority;
+		forget();
+	}
+
+	/**
+	 * Sets how much a formateur dislikes each percentage point of seats held by a partner.
+	 * @param weight the weight, 1 by default.
+	 * @throws IllegalArgumentException if the weight is negative.
+	 */
+	public void setSeatWeight(double weight) throws IllegalArgumentException
+	{
+		seatWeight = checkWeight(weight);
+		forget();
+	}
+
+	/**
+	 * Sets how much a formateur dislikes each unit of policy distance to a partner.
+	 * @param weight the weight, 1 by default.
+	 * @throws IllegalArgumentException if the weight is negative.
+	 */
+	public void setDistanceWeight(double weight) throws IllegalArgumentException
+	{
+		distanceWeight = checkWeight(weight);
+		forget();
+	}
+
+	/**
+	 * Sets how much a formateur dislikes each point of competence a partner lacks.
+	 * @param weight the weight, 1 by default.
+	 * @throws IllegalArgumentException if the weight is negative.
+	 */
+	public void setCompetenceWeight(double weight) throws IllegalArgumentException
+	{
+		competenceWeight = checkWeight(weight);
+		forget();
+	}
+
+	/**
+	 * Returns a weight if it is valid. Costs must not be negative for the
+	 * search's bounds to hold.
+	 */
+	private static double checkWeight(double weight) throws IllegalArgumentException
+	{
+		if(!(weight >= 0))
+			throw new IllegalArgumentException("Invalid weight: " + weight);
+
+		return weight;
+	}
+
+	/**
+	 * Discards the coalitions found with the previous settings.
+	 */
+	private void forget()
+	{
+		Arrays.fill(coalitions, null);
+		Arrays.fill(solved, false);
+	}
+
+	/**
+	 * Returns the coalition the largest party forms, which governs.
+	 * @return the governing coalition, or null if no coalition holds a majority.
+	 */
+	public Coalition government()
+	{
+		if(parties.length == 0)
+			return null;
+
+		return solve(0);
+	}
+
+	/**
+	 * Returns the coalition a party prefers to form.
+	 * @param formateur the party forming the coalition.
+	 * @return the party's preferred coalition, or null if no coalition
+	 * including it holds a majority.
+	 * @throws IllegalArgumentException if the party is not in the parliament.
+	 */
+	public Coalition preferredCoalition(Party formateur) throws IllegalArgumentException
+	{
+		for(int i=0; i<parties.length; i++)
+			if(parties[i] == formateur) return solve(i);
+
+		throw new IllegalArgumentException("Party " + formateur.getName() + " is not in the parliament");
+	}
+
+	/**
+	 * Returns the coalition each party prefers to form, for every party that
+	 * can form one.
+	 * @return the preferred coalitions, in descending order of their formateur's seats.
+	 */
+	public ImmutableList<Coalition> preferredCoalitions()
+	{
+		ImmutableList.Builder<Coalition> listBuilder = ImmutableList.builder();
+		for(int i=0; i<parties.length; i++)
+		{
+			Coalition c = solve(i);
+			if(c != null)
+				listBuilder.add(c);
+		}
+
+		return listBuilder.build();
+	}
+
+	/**
+	 * Returns the coalition the party with the given index prefers, searching
+	 * for it the first time it is asked for.
+	 */
+	private Coalition solve(int formateur)
+	{
+		if(!solved[formateur])
+		{
+			coalitions[formateur] = search(formateur);
+			solved[formateur] = true;
+		}
+
+		return coalitions[formateur];
+	}
+
+	/**
+	 * Searches for the coalition the party with the given index prefers.
+	 */
+	private Coalition search(int formateur)
+	{
+		//every party with seats may be a partner, cheapest first
+		List<Integer> order = new ArrayList<>(parties.length);
+		for(int i=0; i<parties.length; i++)
+			if(i != formateur && seats[i] > 0) order.add(i);
+
+		final double[] costs = new double[parties.length];
+		for(int i : order)
+			costs[i] = seatWeight * seats[i] + distanceWeight * distances[formateur][i]
+			         + competenceWeight * (100 - parties[i].getCompetence());
+
+		Collections.sort(order, new Comparator<Integer>()
+		{
+			@Override
+			public int compare(Integer a, Integer b)
+			{
+				return Double.compare(costs[a], costs[b]);
+			}
+		});
+
+		int n = order.size();
+		candidates = new int[n];
+		candidateCosts = new double[n];
+		candidateSeats = new double[n];
+		costPrefix = new double[n+1];
+		for(int i=0; i<n; i++)
+		{
+			candidates[i] = order.get(i);
+			candidateCosts[i] = costs[candidates[i]];
+			candidateSeats[i] = seats[candidates[i]];
+			costPrefix[i+1] = costPrefix[i] + candidateCosts[i];
+		}
+
+		topSeats = new double[n+1][];
+		for(int i=0; i<=n; i++)
+		{
+			double[] suffix = Arrays.copyOfRange(candidateSeats, i, n);
+			Arrays.sort(suffix);
+			topSeats[i] = new double[suffix.length + 1];
+			for(int m=1; m<=suffix.length; m++)
+				topSeats[i][m] = topSeats[i][m-1] + suffix[suffix.length - m];
+		}
+
+		//the fewest partners needed are the largest ones
+		int noPartners = 0;
+		while(noPartners <= n && seats[formateur] + topSeats[0][noPartners] <= majority)
+			noPartners++;
+		if(noPartners > n)
+			return null;
+
+		bestMask = 0;
+		bestCost = Double.POSITIVE_INFINITY;
+		branch(0, noPartners, 0, 0, seats[formateur]);
+
+		List<Party> partners = new ArrayList<>(noPartners);
+		for(int i=0; i<parties.length; i++)
+			if((bestMask & (1L << i)) != 0) partners.add(parties[i]);
+
+		return new Coalition(parties[formateur], ImmutableList.copyOf(partners), bestSeats, bestCost);
+	}
+
+	/**
+	 * Decides whether to take each candidate from the given index on, with
+	 * the given number of partners still to take.
+	 * @param i the index of the next candidate.
+	 * @param remaining the number of partners still to take.
+	 * @param mask the parties taken so far.
+	 * @param cost the cost of the partners taken so far.
+	 * @param coalitionSeats the seats of the parties taken so far.
+	 */
+	private void branch(int i, int remaining, long mask, double cost, double coalitionSeats)
+	{
+		if(remaining == 0)
+		{
+			if(coalitionSeats > majority && cost < bestCost)
+			{
+				bestMask = mask;
+				bestCost = cost;
+				bestSeats = coalitionSeats;
+			}
+			return;
+		}
+
+		int n = candidates.length;
+		if(n - i < remaining)
+			return;
+
+		//the cheapest partners left are the next ones, and even they must
+		//beat the best coalition so far
+		if(cost + costPrefix[i + remaining] - costPrefix[i] >= bestCost)
+			return;
+
+		//and even the largest partners left must give a majority
+		if(coalitionSeats + topSeats[i][remaining] <= majority)
+			return;
+
+		branch(i+1, remaining-1, mask | (1L << candidates[i]), cost + candidateCosts[i], coalitionSeats + candidateSeats[i]);
+		branch(i+1, remaining, mask, cost, coalitionSeats);
+	}
+}
@@ -0,0 +1,400 @@
+import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Sweeps one party's social policy, economic policy and competence over a
+ * grid, running an election against a fixed electorate at every point.
+ *
+ * The voters' preferences between the other parties do not change as the
+ * swept party moves, so they are ranked against the other parties once.
+ * Each voter profile then only needs the swept party's utility at each
+ * point, to find where the party slots into the profile's ranking. The
+ * ballots of a point are counted by how many profiles of each fixed ranking
+ * place the swept party at each position, so no voter is ranked from
+ * scratch after the first pass.
+ *
+ * The same seed always gives the same results, whatever the parallelism.
+ * Since ties between the other parties are broken once for the whole sweep,
+ * differences between points are not blurred by tie-breaking noise.
+ */
+public class PartySweep
+{
+	/** The number of profiles ranked from each random number generator */
+	private static final int CHUNK_SIZE = 1 << 12;
+
+	/** The voters participating in every election */
+	private final Electorate electorate;
+	/** The parties participating in every election */
+	private final Party[] parties;
+	/** The index of the swept party */
+	private final int swept;
+
+	//The values swept over
+	private int[] socialPolicies;
+	private int[] economicPolicies;
+	private int[] competences;
+
+	private long seed;
+	private int parallelism = 1;
+
+	//The voters' rankings of the other parties, in pieces of voters who share
+	//both a profile and a ranking. Each piece holds its profile, its ranking's
+	//index in fixedBallots, its number of voters, and the utilities of the
+	//other parties in the order they are ranked.
+	private BallotBox fixedBallots;
+	private int noPieces;
+	private int[] pieceProfiles;
+	private int[] pieceBallots;
+	private int[] pieceWeights;
+	private byte[] pieceUtilities;
+
+	/**
+	 * Constructs a sweep of a party against a fixed electorate. Until set,
+	 * each swept value takes only the party's current value.
+	 * @param electorate the voters participating in every election.
+	 * @param parties the parties participating in every election.
+	 * @param swept the party to sweep, which must be one of the parties.
+	 * @throws IllegalArgumentException if the swept party is not one of the parties.
+	 */
+	public PartySweep(Electorate electorate, Party[] parties, Party swept) throws IllegalArgumentException
+	{
+		this.electorate = electorate;
+		this.parties = parties.clone();
+		this.swept = Arrays.asList(this.parties).indexOf(swept);
+		if(this.swept < 0)
+			throw new IllegalArgumentException("The swept party is not participating: " + swept.getName());
+
+		this.socialPolicies = new int[]{ swept.getSocialPolicy() };
+		this.economicPolicies = new int[]{ swept.getEconomicPolicy() };
+		this.competences = new int[]{ swept.getCompetence() };
+	}
+
+	/**
+	 * Sets the social policies the swept party takes.
+	 * @param values the social policies, each from 0-100.
+	 * @throws IllegalArgumentException if there are no values or any are out of range.
+	 */
+	public void setSocialPolicies(int... values) throws IllegalArgumentException
+	{
+		socialPolicies = checkValues(values);
+	}
+
+	/**
+	 * Sets the economic policies the swept party takes.
+	 * @param values the economic policies, each from 0-100.
+	 * @throws IllegalArgumentException if there are no values or any are out of range.
+	 */
+	public void setEconomicPolicies(int... values) throws IllegalArgumentException
+	{
+		economicPolicies = checkValues(values);
+	}
+
+	/**
+	 * Sets the competences the swept party takes.
+	 * @param values the competences, each from 0-100.
+	 * @throws IllegalArgumentException if there are no values or any are out of range.
+	 */
+	public void setCompetences(int... values) throws IllegalArgumentException
+	{
+		competences = checkValues(values);
+	}
+
+	/**
+	 * Sets the seed from which all random tie-breaking in the sweep is derived.
+	 * @param seed the seed.
+	 */
+	public void setSeed(long seed)
+	{
+		this.seed = seed;
+	}
+
+	/**
+	 * Sets the number of threads the grid points are evaluated on.
+	 * @param parallelism the number of threads, 1 to evaluate on the calling thread.
+	 * @throws IllegalArgumentException if the parallelism is less than 1.
+	 */
+	public void setParallelism(int parallelism) throws IllegalArgumentException
+	{
+		if(parallelism < 1)
+			throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Returns the number of points in the grid.
+	 * @return the number of points in the grid.
+	 */
+	public int noPoints()
+	{
+		return socialPolicies.length * economicPolicies.length * competences.length;
+	}
+
+	/**
+	 * Runs an election at every point of the grid. The points are ordered by
+	 * social policy, then economic policy, then competence.
+	 * @param electionFactory creates a new, empty election of the system to be swept.
+	 * @return the outcome at every point of the grid.
+	 */
+	public ImmutableList<SweepPoint> run(Supplier<? extends Election> electionFactory)
+	{
+		rankFixedParties();
+
+		SweepPoint[] points = new SweepPoint[noPoints()];
+		PointTask task = new PointTask(electionFactory, points, 0, points.length);
+		if(parallelism == 1)
+		{
+			task.compute();
+		}
+		else
+		{
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try
+			{
+				pool.invoke(task);
+			}
+			finally
+			{
+				pool.shutdown();
+			}
+		}
+
+		return ImmutableList.copyOf(points);
+	}
+
+	/**
+	 * Ranks every profile in the electorate against every party but the swept
+	 * one, splitting profiles whose voters break ties differently into pieces.
+	 */
+	private void rankFixedParties()
+	{
+		int noFixed = parties.length - 1;
+		Party[] fixedParties = new Party[noFixed];
+		for(int i=0, j=0; i<parties.length; i++)
+			if(i != swept) fixedParties[j++] = parties[i];
+
+		int[] profiles = electorate.sortedProfiles();
+		int[] counts = electorate.sortedCounts();
+
+		fixedBallots = new BallotBox(noFixed);
+		noPieces = 0;
+		pieceProfiles = new int[profiles.length];
+		pieceBallots = new int[profiles.length];
+		pieceWeights = new int[profiles.length];
+		pieceUtilities = new byte[profiles.length * noFixed];
+
+		PieceSink sink = new PieceSink(fixedParties);
+		BallotRanker ranker = null;
+		for(int i=0; i<profiles.length; i++)
+		{
+			if(i % CHUNK_SIZE == 0)
+				ranker = new BallotRanker(fixedParties, new SplittableRandom(Seeds.mix(seed, i / CHUNK_SIZE)));
+
+			int profile = profiles[i];
+			sink.profile = profile;
+			ranker.count(sink, VoterProfile.socialPreference(profile), VoterProfile.economicPreference(profile),
+			             VoterProfile.preferenceRatio(profile), VoterProfile.competenceRatio(profile), counts[i]);
+		}
+	}
+
+	/**
+	 * Runs the election at a single point of the grid.
+	 * @param positions scratch space for the number of voters placing the
+	 * swept party at each position of each fixed ranking.
+	 */
+	private SweepPoint runPoint(Supplier<? extends Election> electionFactory, int point, int[] positions)
+	{
+		int c = point % competences.length;
+		int e = point / competences.length % economicPolicies.length;
+		int s = point / competences.length / economicPolicies.length;
+
+		Party moved = new Party(parties[swept].getName(), socialPolicies[s], economicPolicies[e], competences[c]);
+		Party[] pointParties = parties.clone();
+		pointParties[swept] = moved;
+
+		BallotBox ballots = countPoint(moved, point, positions);
+
+		Election election = electionFactory.get();
+		election.shareElectorate(electorate);
+		election.addParties(pointParties);
+		election.shareBallots(ballots, pointParties);
+		election.setSeed(Seeds.mix(seed, -1 - point));
+		election.run();
+
+		return new SweepPoint(moved, election);
+	}
+
+	/**
+	 * Counts the ballots at a single point of the grid, identifying parties
+	 * by their index in the party array.
+	 */
+	private BallotBox countPoint(Party moved, int point, int[] positions)
+	{
+		int noParties = parties.length;
+		int noFixed = noParties - 1;
+		int socPol = moved.getSocialPolicy();
+		int econPol = moved.getEconomicPolicy();
+		int competence = moved.getCompetence();
+		SplittableRandom randGen = new SplittableRandom(Seeds.mix(seed, Long.MAX_VALUE - point));
+
+		Arrays.fill(positions, 0);
+		for(int i=0; i<noPieces; i++)
+		{
+			int profile = pieceProfiles[i];
+			int utility = Voter.utilityValue(VoterProfile.socialPreference(profile), VoterProfile.economicPreference(profile),
+			                                 VoterProfile.preferenceRatio(profile), VoterProfile.competenceRatio(profile),
+			                                 socPol, econPol, competence);
+
+			//the swept party goes after every party it is less preferred to,
+			//and randomly among any it is tied with
+			int from = i * noFixed;
+			int above = 0;
+			while(above < noFixed && pieceUtilities[from + above] > utility)
+				above++;
+			int tied = 0;
+			while(above + tied < noFixed && pieceUtilities[from + above + tied] == utility)
+				tied++;
+
+			int base = pieceBallots[i] * noParties + above;
+			int remaining = pieceWeights[i];
+			for(int j=0; j<tied && remaining>0; j++)
+			{
+				int share = Sampling.binomial(randGen, remaining, 1.0 / (tied + 1 - j));
+				positions[base + j] += share;
+				remaining -= share;
+			}
+			positions[base + tied] += remaining;
+		}
+
+		//insert the swept party into each fixed ranking at each position taken
+		BallotBox ballots = new BallotBox(noParties);
+		int[] ranking = new int[noParties];
+		for(int b=0; b<fixedBallots.noBallots(); b++)
+		{
+			for(int k=0; k<noParties; k++)
+			{
+				int weight = positions[b * noParties + k];
+				if(weight == 0)
+					continue;
+
+				for(int rank=0; rank<noParties; rank++)
+				{
+					if(rank == k)
+						ranking[rank] = swept;
+					else
+						ranking[rank] = partyIndex(fixedBallots.getParty(b, rank < k ? rank : rank - 1));
+				}
+				ballots.addBallot(ranking, weight);
+			}
+		}
+
+		return ballots;
+	}
+
+	/**
+	 * Converts the index of a party among the other parties to its index among all the parties.
+	 */
+	private int partyIndex(int fixedIndex)
+	{
+		return fixedIndex < swept ? fixedIndex : fixedIndex + 1;
+	}
+
+	/**
+	 * Checks that the values swept over are in range.
+	 */
+	private static int[] checkValues(int[] values)
+	{
+		if(values.length == 0)
+			throw new IllegalArgumentException("No values to sweep over");
+
+		for(int v : values)
+			if(v < 0 || v > 100) throw new IllegalArgumentException("Value out of range: " + v);
+
+		return values.clone();
+	}
+
+	/**
+	 * Records the pieces of the profile being ranked against the other parties.
+	 */
+	private class PieceSink implements BallotSink
+	{
+		private final Party[] fixedParties;
+		/** The profile currently being ranked */
+		int profile;
+
+		PieceSink(Party[] fixedParties)
+		{
+			this.fixedParties = fixedParties;
+		}
+
+		@Override
+		public void addBallot(int[] ranking, int weight)
+		{
+			int noFixed = fixedParties.length;
+			if(noPieces == pieceProfiles.length)
+			{
+				int capacity = noPieces + (noPieces >> 1) + 1;
+				pieceProfiles = Arrays.copyOf(pieceProfiles, capacity);
+				pieceBallots = Arrays.copyOf(pieceBallots, capacity);
+				pieceWeights = Arrays.copyOf(pieceWeights, capacity);
+				pieceUtilities = Arrays.copyOf(pieceUtilities, capacity * noFixed);
+			}
+
+			pieceProfiles[noPieces] = profile;
+			pieceBallots[noPieces] = fixedBallots.add(ranking, weight);
+			pieceWeights[noPieces] = weight;
+			for(int rank=0; rank<noFixed; rank++)
+			{
+				//utilities lie within -100 to 100, so they fit in a byte
+				pieceUtilities[noPieces * noFixed + rank] = (byte) Voter.utilityValue(
+					VoterProfile.socialPreference(profile), VoterProfile.economicPreference(profile),
+					VoterProfile.preferenceRatio(profile), VoterProfile.competenceRatio(profile),
+					fixedParties[ranking[rank]]);
+			}
+			noPieces++;
+		}
+	}
+
+	/**
+	 * Runs the elections at a range of grid points, splitting the range in
+	 * half until a single point remains.
+	 */
+	private class PointTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Supplier<? extends Election> electionFactory;
+		private final SweepPoint[] points;
+		private final int from;
+		private final int to;
+
+		PointTask(Supplier<? extends Election> electionFactory, SweepPoint[] points, int from, int to)
+		{
+			this.electionFactory = electionFactory;
+			this.points = points;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if(parallelism == 1 || to - from <= 1)
+			{
+				int[] positions = new int[fixedBallots.noBallots() * parties.length];
+				for(int i=from; i<to; i++)
+					points[i] = runPoint(electionFactory, i, positions);
+
+				return;
+			}
+
+			int middle = (from + to) >>> 1;
+			invokeAll(new PointTask(electionFactory, points, from, middle),
+			          new PointTask(electionFactory, points, middle, to));
+		}
+	}
+}
@@ -0,0 +1,229 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Runs many replications of an election, each with a freshly generated
+ * electorate, and summarizes the distribution of their results.
+ *
+ * Replication i generates its voters and breaks its ties from seeds derived
+ * only from the batch seed and i, so a batch always gives the same results
+ * whatever the parallelism. Replications run in parallel, one election per
+ * thread at a time. Each thread reuses a single voter table for all the
+ * electorates it generates, and results are summarized as they complete.
+ */
+public class SimulationBatch
+{
+	/** The number of replications summarized together before being merged */
+	private static final int REPLICATIONS_PER_TASK = 16;
+
+	/** Creates the election run in each replication */
+	private final Supplier<? extends Election> electionFactory;
+	/** The parties participating in every replication */
+	private final Party[] parties;
+	/** The number of voters generated for each replication */
+	private final int noVoters;
+
+	private int noReplications = 1000;
+	private long seed;
+	private int parallelism = 1;
+	private GaussianSampler sampler = GaussianSampler.ZIGGURAT;
+
+	/** Each thread's voter table, refilled for every replication it runs */
+	private final ThreadLocal<VoterTable> voterBuffer = new ThreadLocal<VoterTable>()
+	{
+		@Override
+		protected VoterTable initialValue()
+		{
+			return new VoterTable(noVoters);
+		}
+	};
+
+	/**
+	 * Constructs a batch of replications of an election.
+	 * @param electionFactory creates a new, empty election of the system to be simulated.
+	 * @param parties the parties participating in every replication.
+	 * @param noVoters the number of voters generated for each replication.
+	 * @throws IllegalArgumentException if the number of voters is less than 1.
+	 */
+	public SimulationBatch(Supplier<? extends Election> electionFactory, Party[] parties, int noVoters) throws IllegalArgumentException
+	{
+		if(noVoters < 1)
+			throw new IllegalArgumentException("Invalid number of voters: " + noVoters);
+
+		this.electionFactory = electionFactory;
+		this.parties = parties.clone();
+		this.noVoters = noVoters;
+	}
+
+	/**
+	 * Sets the number of replications to run.
+	 * @param noReplications the number of replications.
+	 * @throws IllegalArgumentException if the number of replications is less than 1.
+	 */
+	public void setReplications(int noReplications) throws IllegalArgumentException
+	{
+		if(noReplications < 1)
+			throw new IllegalArgumentException("Invalid number of replications: " + noReplications);
+
+		this.noReplications = noReplications;
+	}
+
+	/**
+	 * Returns the number of replications to run.
+	 * @return the number of replications to run.
+	 */
+	public int getReplications()
+	{
+		return noReplications;
+	}
+
+	/**
+	 * Sets the seed from which every replication's voters and tie-breaking are derived.
+	 * @param seed the seed.
+	 */
+	public void setSeed(long seed)
+	{
+		this.seed = seed;
+	}
+
+	/**
+	 * Returns the seed from which every replication's voters and tie-breaking are derived.
+	 * @return the seed.
+	 */
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	/**
+	 * Sets the number of threads the replications are run on.
+	 * @param parallelism the number of threads, 1 to run on the calling thread.
+	 * @throws IllegalArgumentException if the parallelism is less than 1.
+	 */
+	public void setParallelism(int parallelism) throws IllegalArgumentException
+	{
+		if(parallelism < 1)
+			throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Returns the number of threads the replications are run on.
+	 * @return the number of threads the replications are run on.
+	 */
+	public int getParallelism()
+	{
+		return parallelism;
+	}
+
+	/**
+	 * Sets the method used to sample the normal distribution when generating voters.
+	 * @param sampler the method used to sample the normal distribution.
+	 */
+	public void setSampler(GaussianSampler sampler)
+	{
+		this.sampler = sampler;
+	}
+
+	/**
+	 * Runs every replication and returns the summary of their results.
+	 * @return the summary of the results of every replication.
+	 */
+	public BatchResults run()
+	{
+		long start = System.nanoTime();
+
+		BatchResults results;
+		ReplicationTask task = new ReplicationTask(0, noReplications);
+		if(parallelism == 1)
+		{
+			results = task.compute();
+		}
+		else
+		{
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try
+			{
+				results = pool.invoke(task);
+			}
+			finally
+			{
+				pool.shutdown();
+			}
+		}
+
+		results.setTiming(System.nanoTime() - start, parallelism);
+		return results;
+	}
+
+	/**
+	 * Runs a single replication on the calling thread and adds its results.
+	 */
+	private void runReplication(int replication, BatchResults results)
+	{
+		VoterTable voters = voterBuffer.get();
+		VoterFactory.generate(voters, noVoters, Seeds.mix(seed, 2L * replication), 1, sampler);
+
+		Election e = electionFactory.get();
+		e.shareVoters(voters);
+		e.addParties(parties);
+		e.setSeed(Seeds.mix(seed, 2L * replication + 1));
+		e.run();
+
+		results.add(e);
+	}
+
+	/**
+	 * Runs a range of replications, splitting it in half until at most
+	 * {@value #REPLICATIONS_PER_TASK} remain. The split points depend only on
+	 * the range, so the summaries are always merged in the same order.
+	 */
+	private class ReplicationTask extends RecursiveTask<BatchResults>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+
+		ReplicationTask(int from, int to)
+		{
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected BatchResults compute()
+		{
+			if(to - from <= REPLICATIONS_PER_TASK)
+			{
+				BatchResults results = new BatchResults(parties);
+				for(int i=from; i<to; i++)
+					runReplication(i, results);
+
+				return results;
+			}
+
+			int middle = (from + to) >>> 1;
+			ReplicationTask left = new ReplicationTask(from, middle);
+			ReplicationTask right = new ReplicationTask(middle, to);
+
+			//split the same way when running on the calling thread, so the
+			//summaries are merged in the same order
+			if(parallelism == 1)
+			{
+				BatchResults results = left.compute();
+				results.merge(right.compute());
+				return results;
+			}
+
+			left.fork();
+			BatchResults results = right.compute();
+			BatchResults leftResults = left.join();
+			leftResults.merge(results);
+
+			return leftResults;
+		}
+	}
+}
@@ -0,0 +1,191 @@
+/**
+ * Summary statistics of a stream of values within a fixed range, kept in
+ * constant memory. The mean and variance are exact. Quantiles are read from
+ * a histogram of equal width bins, so they are accurate to within one bin.
+ * Two summaries of the same range can be merged, so a stream can be
+ * summarized in parts on different threads.
+ */
+public class StreamingStats
+{
+	//The range of values and the histogram of the values seen
+	private final double low;
+	private final double high;
+	private final long[] bins;
+
+	/** The number of values seen */
+	private long count;
+	/** The mean of the values seen */
+	private double mean;
+	/** The sum of squared differences from the mean of the values seen */
+	private double m2;
+	//The smallest and largest values seen
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Constructs an empty summary of values within the given range.
+	 * @param low the smallest value expected.
+	 * @param high the largest value expected.
+	 * @param noBins the number of histogram bins the range is divided into.
+	 * @throws IllegalArgumentException if the range is empty or there are no bins.
+	 */
+	public StreamingStats(double low, double high, int noBins) throws IllegalArgumentException
+	{
+		if(!(low < high))
+			throw new IllegalArgumentException("Invalid range: " + low + " to " + high);
+		if(noBins < 1)
+			throw new IllegalArgumentException("Invalid number of bins: " + noBins);
+
+		this.low = low;
+		this.high = high;
+		this.bins = new long[noBins];
+	}
+
+	/**
+	 * Adds a value to the summary. Values outside the range are counted in
+	 * the nearest histogram bin.
+	 * @param x the value to be added.
+	 */
+	public void add(double x)
+	{
+		//Welford's update of the mean and squared differences
+		count++;
+		double delta = x - mean;
+		mean += delta / count;
+		m2 += delta * (x - mean);
+
+		min = Math.min(min, x);
+		max = Math.max(max, x);
+
+		bins[bin(x)]++;
+	}
+
+	/**
+	 * Adds all the values summarized by another summary to this one.
+	 * @param other the summary to be merged into this one.
+	 * @throws IllegalArgumentException if the summaries have different ranges or bins.
+	 */
+	public void merge(StreamingStats other) throws IllegalArgumentException
+	{
+		if(other.low != low || other.high != high || other.bins.length != bins.length)
+			throw new IllegalArgumentException("Cannot merge summaries of different ranges");
+
+		if(other.count == 0)
+			return;
+
+		//Chan et al.'s combination of two means and squared differences
+		long total = count + other.count;
+		double delta = other.mean - mean;
+		mean += delta * other.count / total;
+		m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+		count = total;
+
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+
+		for(int i=0; i<bins.length; i++)
+			bins[i] += other.bins[i];
+	}
+
+	/**
+	 * Returns the number of values seen.
+	 * @return the number of values seen.
+	 */
+	public long count()
+	{
+		return count;
+	}
+
+	/**
+	 * Returns the mean of the values seen, or NaN if there are none.
+	 * @return the mean of the values seen.
+	 */
+	public double mean()
+	{
+		return count == 0 ? Double.NaN : mean;
+	}
+
+	/**
+	 * Returns the sample variance of the values seen, or NaN if there are
+	 * fewer than two.
+	 * @return the sample variance of the values seen.
+	 */
+	public double variance()
+	{
+		return count < 2 ? Double.NaN : m2 / (count - 1);
+	}
+
+	/**
+	 * Returns the sample standard deviation of the values seen, or NaN if
+	 * there are fewer than two.
+	 * @return the sample standard deviation of the values seen.
+	 */
+	public double standardDeviation()
+	{
+		return Math.sqrt(variance());
+	}
+
+	/**
+	 * Returns the half width of the 95% confidence interval of the mean,
+	 * using the normal approximation.
+	 * @return the half width of the 95% confidence interval of the mean.
+	 */
+	public double confidenceHalfWidth()
+	{
+		return 1.96 * standardDeviation() / Math.sqrt(count);
+	}
+
+	/**
+	 * Returns the smallest value seen, or NaN if there are none.
+	 * @return the smallest value seen.
+	 */
+	public double min()
+	{
+		return count == 0 ? Double.NaN : min;
+	}
+
+	/**
+	 * Returns the largest value seen, or NaN if there are none.
+	 * @return the largest value seen.
+	 */
+	public double max()
+	{
+		return count == 0 ? Double.NaN : max;
+	}
+
+	/**
+	 * Returns an estimate of a quantile of the values seen, accurate to within
+	 * the width of one histogram bin.
+	 * @param q the quantile, from 0 to 1.
+	 * @return an estimate of the quantile, or NaN if no values have been seen.
+	 * @throws IllegalArgumentException if q is not between 0 and 1.
+	 */
+	public double quantile(double q) throws IllegalArgumentException
+	{
+		if(!(q >= 0 && q <= 1))
+			throw new IllegalArgumentException("Invalid quantile: " + q);
+		if(count == 0)
+			return Double.NaN;
+
+		//find the bin holding the value of the given rank, and take its middle
+		long rank = Math.max(1, (long) Math.ceil(q * count));
+		long seen = 0;
+		int i = 0;
+		while(seen + bins[i] < rank)
+			seen += bins[i++];
+
+		double width = (high - low) / bins.length;
+		double estimate = low + (i + 0.5) * width;
+
+		return Math.min(max, Math.max(min, estimate));
+	}
+
+	/**
+	 * Returns the histogram bin a value falls in.
+	 */
+	private int bin(double x)
+	{
+		int i = (int) ((x - low) / (high - low) * bins.length);
+		return Math.min(bins.length - 1, Math.max(0, i));
+	}
+}
@@ -0,0 +1,72 @@
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The outcome of an election at one point of a {@link PartySweep}.
+ */
+public class SweepPoint
+{
+	/** The swept party, with its policies and competence at this point */
+	private final Party party;
+	/** The first round results of the election at this point */
+	private final ImmutableList<PartyWithVotes> results;
+	/** The seat results of the election at this point */
+	private final ImmutableList<PartyWithDoubleValue> seatResults;
+
+	/**
+	 * Constructs the outcome of the election at a sweep point.
+	 * @param party the swept party at this point.
+	 * @param e the completed election.
+	 */
+	SweepPoint(Party party, Election e)
+	{
+		this.party = party;
+		this.results = e.firstRoundResults();
+		this.seatResults = e.seatResults();
+	}
+
+	/**
+	 * Returns the swept party, with its policies and competence at this point.
+	 * @return the swept party at this point.
+	 */
+	public Party getParty()
+	{
+		return party;
+	}
+
+	/**
+	 * Returns the first round results of the election at this point.
+	 * @return A list of parties with votes sorted in descending order.
+	 */
+	public ImmutableList<PartyWithVotes> results()
+	{
+		return results;
+	}
+
+	/**
+	 * Returns the seat results of the election at this point.
+	 * @return A list of parties with their percentage of seats.
+	 */
+	public ImmutableList<PartyWithDoubleValue> seatResults()
+	{
+		return seatResults;
+	}
+
+	/**
+	 * Returns the percentage of seats the swept party won at this point.
+	 * @return the percentage of seats the swept party won.
+	 */
+	public double partySeats()
+	{
+		for(PartyWithDoubleValue p : seatResults)
+			if(p.getParty() == party) return p.getValue();
+
+		return 0;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%s (%d, %d, %d): %.2f%% of seats", party.getName(), party.getSocialPolicy(),
+		                     party.getEconomicPolicy(), party.getCompetence(), partySeats());
+	}
+}
@@ -0,0 +1,250 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+/**
+ * Checks the coalitions found by the branch and bound search against an
+ * enumeration of every subset of partners.
+ */
+public class CoalitionSolverTest
+{
+	/** The tolerance for costs summed in a different order */
+	private static final double EPSILON = 1e-9;
+
+	@Test
+	public void matchesEnumerationOnRandomParliaments()
+	{
+		Random randGen = new Random(1);
+		for(int t=0; t<3000; t++)
+		{
+			List<PartyWithDoubleValue> parliament = randomParliament(randGen, 1 + randGen.nextInt(12));
+
+			CoalitionSolver solver = new CoalitionSolver(parliament);
+			double majority = 50;
+			double[] weights = { 1, 1, 1 };
+			if(t % 2 == 1)
+			{
+				majority = 40 + randGen.nextInt(27);
+				for(int w=0; w<weights.length; w++)
+					weights[w] = randGen.nextInt(4) == 0 ? 0 : 3 * randGen.nextDouble();
+
+				solver.setMajority(majority);
+				solver.setSeatWeight(weights[0]);
+				solver.setDistanceWeight(weights[1]);
+				solver.setCompetenceWeight(weights[2]);
+			}
+
+			for(PartyWithDoubleValue formateur : parliament)
+			{
+				Coalition expected = enumerate(parliament, formateur, majority, weights);
+				Coalition found = solver.preferredCoalition(formateur.getParty());
+
+				if(expected == null)
+				{
+					assertNull(found);
+					continue;
+				}
+
+				assertSame(formateur.getParty(), found.getFormateur());
+				assertEquals(expected.getPartners().size(), found.getPartners().size());
+				assertEquals(expected.getCost(), found.getCost(), EPSILON);
+				assertTrue(found.getSeats() > majority);
+
+				//the partners found must hold the seats and cost reported
+				double seats = formateur.getValue();
+				double cost = 0;
+				for(Party p : found.getPartners())
+				{
+					double partnerSeats = seatsOf(parliament, p);
+					assertTrue(partnerSeats > 0);
+					seats += partnerSeats;
+					cost += cost(formateur.getParty(), p, partnerSeats, weights);
+				}
+				assertEquals(seats, found.getSeats(), EPSILON);
+				assertEquals(cost, found.getCost(), EPSILON);
+			}
+		}
+	}
+
+	@Test
+	public void governmentIsFormedByTheLargestParty()
+	{
+		Party a = new Party("A", 20, 20, 50);
+		Party b = new Party("B", 80, 80, 50);
+		Party c = new Party("C", 30, 30, 50);
+		Party d = new Party("D", 35, 35, 90);
+
+		List<PartyWithDoubleValue> parliament = new ArrayList<>();
+		parliament.add(new PartyWithDoubleValue(b, 30));
+		parliament.add(new PartyWithDoubleValue(a, 40));
+		parliament.add(new PartyWithDoubleValue(c, 15));
+		parliament.add(new PartyWithDoubleValue(d, 15));
+
+		//A needs one partner, and C and D hold the same seats, so D's
+		//competence outweighs its larger distance
+		Coalition government = new CoalitionSolver(parliament).government();
+		assertSame(a, government.getFormateur());
+		assertEquals(1, government.getPartners().size());
+		assertSame(d, government.getPartners().get(0));
+		assertEquals(55, government.getSeats(), EPSILON);
+	}
+
+	@Test
+	public void majorityPartyGovernsAlone()
+	{
+		List<PartyWithDoubleValue> parliament = new ArrayList<>();
+		parliament.add(new PartyWithDoubleValue(new Party("A", 20, 20, 50), 60));
+		parliament.add(new PartyWithDoubleValue(new Party("B", 80, 80, 50), 40));
+
+		Coalition government = new CoalitionSolver(parliament).government();
+		assertTrue(government.getPartners().isEmpty());
+		assertEquals(0, government.getCost(), 0);
+	}
+
+	@Test
+	public void noCoalitionWithoutAMajority()
+	{
+		List<PartyWithDoubleValue> parliament = new ArrayList<>();
+		parliament.add(new PartyWithDoubleValue(new Party("A", 20, 20, 50), 50));
+		parliament.add(new PartyWithDoubleValue(new Party("B", 80, 80, 50), 50));
+
+		CoalitionSolver solver = new CoalitionSolver(parliament);
+		solver.setMajority(100);
+		assertNull(solver.government());
+		assertTrue(solver.preferredCoalitions().isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsNegativeWeights()
+	{
+		new CoalitionSolver(new ArrayList<PartyWithDoubleValue>()).setDistanceWeight(-1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsTooManyParties()
+	{
+		new CoalitionSolver(randomParliament(new Random(1), CoalitionSolver.MAX_PARTIES + 1));
+	}
+
+	/**
+	 * Returns a parliament of random parties holding whole percentages of the
+	 * seats, so sums of seats are exact. Some parties hold no seats.
+	 */
+	private static List<PartyWithDoubleValue> randomParliament(Random randGen, int noParties)
+	{
+		int[] shares = new int[noParties];
+		int total = 0;
+		for(int i=0; i<noParties; i++)
+		{
+			shares[i] = randGen.nextInt(8) == 0 ? 0 : 1 + randGen.nextInt(30);
+			total += shares[i];
+		}
+
+		//give the rounding error to the first party with seats
+		int[] seats = new int[noParties];
+		int assigned = 0;
+		for(int i=0; i<noParties; i++)
+		{
+			seats[i] = total == 0 ? 0 : 100 * shares[i] / total;
+			assigned += seats[i];
+		}
+		for(int i=0; i<noParties && total > 0; i++)
+		{
+			if(shares[i] > 0)
+			{
+				seats[i] += 100 - assigned;
+				break;
+			}
+		}
+
+		List<PartyWithDoubleValue> parliament = new ArrayList<>(noParties);
+		for(int i=0; i<noParties; i++)
+		{
+			Party p = new Party("P" + i, randGen.nextInt(101), randGen.nextInt(101), randGen.nextInt(101));
+			parliament.add(new PartyWithDoubleValue(p, seats[i]));
+		}
+
+		return parliament;
+	}
+
+	/**
+	 * Finds the coalition a formateur prefers by trying every subset of the
+	 * other parties with seats.
+	 */
+	private static Coalition enumerate(List<PartyWithDoubleValue> parliament, PartyWithDoubleValue formateur,
+	                                   double majority, double[] weights)
+	{
+		List<PartyWithDoubleValue> others = new ArrayList<>();
+		for(PartyWithDoubleValue p : parliament)
+			if(p != formateur && p.getValue() > 0) others.add(p);
+
+		int bestSize = Integer.MAX_VALUE;
+		double bestCost = 0;
+		int bestMask = 0;
+		for(int mask=0; mask < 1 << others.size(); mask++)
+		{
+			int size = Integer.bitCount(mask);
+			if(size > bestSize)
+				continue;
+
+			double seats = formateur.getValue();
+			double cost = 0;
+			for(int i=0; i<others.size(); i++)
+			{
+				if((mask & 1 << i) == 0)
+					continue;
+
+				PartyWithDoubleValue p = others.get(i);
+				seats += p.getValue();
+				cost += cost(formateur.getParty(), p.getParty(), p.getValue(), weights);
+			}
+
+			if(seats > majority && (size < bestSize || cost < bestCost))
+			{
+				bestSize = size;
+				bestCost = cost;
+				bestMask = mask;
+			}
+		}
+
+		if(bestSize == Integer.MAX_VALUE)
+			return null;
+
+		List<Party> partners = new ArrayList<>();
+		for(int i=0; i<others.size(); i++)
+			if((bestMask & 1 << i) != 0) partners.add(others.get(i).getParty());
+
+		return new Coalition(formateur.getParty(), ImmutableList.copyOf(partners), 0, bestCost);
+	}
+
+	/**
+	 * Returns a formateur's cost of governing with a partner.
+	 */
+	private static double cost(Party formateur, Party partner, double partnerSeats, double[] weights)
+	{
+		int socDis = formateur.getSocialPolicy() - partner.getSocialPolicy();
+		int econDis = formateur.getEconomicPolicy() - partner.getEconomicPolicy();
+
+		return weights[0] * partnerSeats + weights[1] * Math.sqrt(socDis*socDis + econDis*econDis)
+		     + weights[2] * (100 - partner.getCompetence());
+	}
+
+	/**
+	 * Returns the seats held by a party.
+	 */
+	private static double seatsOf(List<PartyWithDoubleValue> parliament, Party p)
+	{
+		for(PartyWithDoubleValue party : parliament)
+			if(party.getParty() == p) return party.getValue();
+
+		throw new IllegalArgumentException(p.getName());
+	}
+}
@@ -0,0 +1,124 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+
+import bench.Simulator;
+
+/**
+ * Implements the operations measured by the benchmarks on the simulator.
+ * It lives in the default package, next to the simulator, so that it can
+ * see the simulator's classes.
+ */
+public class SimulatorBridge implements Simulator
+{
+	/** The number of voters in the sample used by the per voter operations */
+	private static final int SAMPLE_SIZE = 1 << 12;
+
+	private Party[] parties;
+	private Set<Party> partySet;
+	private VoterTable voters;
+	private Voter[] sample;
+	private long seed;
+
+	private SplittableRandom randGen;
+	private int[] ranking;
+	private int[][] votesByChoice;
+	private Multiset<Vote> votes;
+
+	@Override
+	public void setUp(int noVoters, int noParties, long seed)
+	{
+		this.seed = seed;
+		randGen = new SplittableRandom(seed);
+
+		parties = new Party[noParties];
+		for(int i=0; i<noParties; i++)
+			parties[i] = new Party("P" + (i+1), randGen.nextInt(101), randGen.nextInt(101), randGen.nextInt(101));
+		partySet = new HashSet<>(Arrays.asList(parties));
+
+		voters = noVoters > 0 ? VoterFactory.generate(noVoters, seed, 1) : null;
+
+		sample = new Voter[SAMPLE_SIZE];
+		VoterFactory.fillVoterArray(sample, seed);
+		ranking = new int[noParties];
+
+		//the votes of the sample, both as counts and as a multiset
+		votesByChoice = new int[noParties][noParties];
+		votes = HashMultiset.create();
+		for(Voter v : sample)
+		{
+			for(Vote vote : v.getPartyPreferences(partySet, randGen))
+			{
+				votes.add(vote);
+				votesByChoice[Arrays.asList(parties).indexOf(vote.getParty())][vote.getChoiceNumber()-1]++;
+			}
+		}
+	}
+
+	@Override
+	public Object randomVoter()
+	{
+		return VoterFactory.randomVoter(randGen);
+	}
+
+	@Override
+	public Object partyPreferences(int voter)
+	{
+		return sample[voter].getPartyPreferences(partySet, randGen);
+	}
+
+	@Override
+	public Object rankParties(int voter)
+	{
+		return sample[voter].rankParties(parties, ranking, randGen);
+	}
+
+	@Override
+	public int sampleSize()
+	{
+		return SAMPLE_SIZE;
+	}
+
+	@Override
+	public Object runElection(Simulator.ElectionSystem system)
+	{
+		Election e = newElection(system);
+		e.shareVoters(voters);
+		e.addParties(parties);
+		e.setSeed(seed);
+		e.run();
+
+		return e.seatResults();
+	}
+
+	@Override
+	public Object partyWithVotesFromCounts(int party)
+	{
+		return new PartyWithVotes(parties[party], votesByChoice[party]);
+	}
+
+	@Override
+	public Object partyWithVotesFromMultiset(int party)
+	{
+		return new PartyWithVotes(parties[party], votes);
+	}
+
+	/**
+	 * Creates a new, empty election of the given system.
+	 */
+	private static Election newElection(Simulator.ElectionSystem system)
+	{
+		switch(system)
+		{
+			case PR:            return new PRElection();
+			case MAJORITARIAN:  return new MajoritarianElection();
+			case TWO_ROUND:     return new TwoRoundElection();
+			case N_MIN_ONE_AVG: return new NMinOneAvgElection();
+			default:            return new Election();
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures running a whole election under each system, from an electorate
+ * already generated to the seat results. Every invocation creates a new
+ * election over the same voters, so the measured time includes counting
+ * the ballots and any extra rounds but not generating the voters.
+ *
+ * The full grid of parameters takes a long time to run, particularly with
+ * 10 million voters; select a part of it with -p, for example
+ * {@code -p voters=100000 -p system=TWO_ROUND}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ElectionBenchmark
+{
+	@Param({"10000", "100000", "1000000", "10000000"})
+	public int voters;
+
+	@Param({"2", "5", "10", "20"})
+	public int parties;
+
+	@Param({"ELECTION", "PR", "MAJORITARIAN", "TWO_ROUND", "N_MIN_ONE_AVG"})
+	public Simulator.ElectionSystem system;
+
+	private Simulator simulator;
+
+	@Setup
+	public void setUp()
+	{
+		simulator = Simulator.load();
+		simulator.setUp(voters, parties, 1);
+	}
+
+	@Benchmark
+	public Object run()
+	{
+		return simulator.runElection(system);
+	}
+}
@@ -0,0 +1,62 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures constructing a party with votes, both from an array of its votes
+ * by choice and from a multiset of every party's votes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PartyWithVotesBenchmark
+{
+	@Param({"2", "5", "10", "20"})
+	public int parties;
+
+	private Simulator simulator;
+	private int party;
+
+	@Setup
+	public void setUp()
+	{
+		simulator = Simulator.load();
+		simulator.setUp(0, parties, 1);
+	}
+
+	@Benchmark
+	public Object fromCounts()
+	{
+		return simulator.partyWithVotesFromCounts(nextParty());
+	}
+
+	@Benchmark
+	public Object fromMultiset()
+	{
+		return simulator.partyWithVotesFromMultiset(nextParty());
+	}
+
+	/**
+	 * Returns the index of the next party.
+	 */
+	private int nextParty()
+	{
+		party = (party + 1) % parties;
+		return party;
+	}
+}
@@ -0,0 +1,93 @@
+package bench;
+
+/**
+ * The operations of the simulator measured by the benchmarks. The simulator
+ * lives in the default package, which classes in named packages cannot
+ * import and JMH cannot generate benchmarks for, so the benchmarks reach it
+ * through this interface. The implementation is {@code SimulatorBridge}, in
+ * the default package, loaded by name.
+ */
+public interface Simulator
+{
+	/** The name of the default package class implementing this interface */
+	String IMPLEMENTATION = "SimulatorBridge";
+
+	/** The election systems an election can be run under */
+	enum ElectionSystem { ELECTION, PR, MAJORITARIAN, TWO_ROUND, N_MIN_ONE_AVG }
+
+	/**
+	 * Creates the parties and voters the other operations work on. The
+	 * parties' policies and competences, and the voters, are random but
+	 * depend only on the seed.
+	 * @param noVoters the number of voters in the electorate, 0 for none.
+	 * @param noParties the number of parties.
+	 * @param seed the seed the parties and voters are generated from.
+	 */
+	void setUp(int noVoters, int noParties, long seed);
+
+	/**
+	 * Generates a single random voter.
+	 * @return the voter.
+	 */
+	Object randomVoter();
+
+	/**
+	 * Ranks the parties for one of a fixed sample of voters with
+	 * {@code Voter.getPartyPreferences}.
+	 * @param voter the index of the voter in the sample.
+	 * @return the set of votes.
+	 */
+	Object partyPreferences(int voter);
+
+	/**
+	 * Ranks the parties for one of a fixed sample of voters with
+	 * {@code Voter.rankParties}, into a reused array.
+	 * @param voter the index of the voter in the sample.
+	 * @return the ranking.
+	 */
+	Object rankParties(int voter);
+
+	/**
+	 * Returns the number of voters in the fixed sample.
+	 * @return the number of voters in the fixed sample.
+	 */
+	int sampleSize();
+
+	/**
+	 * Runs an election of the electorate and parties under the given system.
+	 * @param system the election system.
+	 * @return the election's results.
+	 */
+	Object runElection(ElectionSystem system);
+
+	/**
+	 * Constructs a party with votes from an array of its votes by choice.
+	 * @param party the index of the party.
+	 * @return the party with votes.
+	 */
+	Object partyWithVotesFromCounts(int party);
+
+	/**
+	 * Constructs a party with votes from a multiset of the votes of the
+	 * fixed sample of voters.
+	 * @param party the index of the party.
+	 * @return the party with votes.
+	 */
+	Object partyWithVotesFromMultiset(int party);
+
+	/**
+	 * Loads the simulator implementation.
+	 * @return a new instance of the implementation.
+	 */
+	static Simulator load()
+	{
+		try
+		{
+			return (Simulator) Class.forName(IMPLEMENTATION).getDeclaredConstructor().newInstance();
+		}
+		catch(ReflectiveOperationException e)
+		{
+			throw new IllegalStateException("Cannot load " + IMPLEMENTATION, e);
+		}
+	}
+}
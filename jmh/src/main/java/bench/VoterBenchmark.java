@@ -0,0 +1,70 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the per voter operations: generating a random voter, and ranking
+ * the parties for a voter with both the set based and the array based
+ * rankings. Voters are cycled through a fixed sample so that every
+ * invocation ranks a different voter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VoterBenchmark
+{
+	@Param({"2", "5", "10", "20"})
+	public int parties;
+
+	private Simulator simulator;
+	private int voter;
+
+	@Setup
+	public void setUp()
+	{
+		simulator = Simulator.load();
+		simulator.setUp(0, parties, 1);
+	}
+
+	@Benchmark
+	public Object randomVoter()
+	{
+		return simulator.randomVoter();
+	}
+
+	@Benchmark
+	public Object getPartyPreferences()
+	{
+		return simulator.partyPreferences(nextVoter());
+	}
+
+	@Benchmark
+	public Object rankParties()
+	{
+		return simulator.rankParties(nextVoter());
+	}
+
+	/**
+	 * Returns the index of the next voter in the sample.
+	 */
+	private int nextVoter()
+	{
+		voter = (voter + 1) % simulator.sampleSize();
+		return voter;
+	}
+}
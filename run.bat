@@ -1 +1,6 @@
-java -cp src/main/java;src/main/resources/* ElectionTest
\ No newline at end of file
+@echo off
+if exist "%~dp0cli\target\electionsimulator.jsa" (
+	java -XX:SharedArchiveFile="%~dp0cli\target\electionsimulator.jsa" -jar "%~dp0cli\target\electionsimulator.jar" %*
+) else (
+	java -jar "%~dp0cli\target\electionsimulator.jar" %*
+)
@@ -1,2 +1,7 @@
 #!/bin/bash
-java -cp src/main/java:src/main/resources/* ElectionTest
\ No newline at end of file
+JAR="$(dirname "$0")/cli/target/electionsimulator.jar"
+JSA="$(dirname "$0")/cli/target/electionsimulator.jsa"
+if [ -f "$JSA" ]; then
+	exec java -XX:SharedArchiveFile="$JSA" -jar "$JAR" "$@"
+fi
+exec java -jar "$JAR" "$@"